@@ -14,6 +14,9 @@ package com.ftpServer.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 @ConfigurationProperties(prefix = "ftp.server")// ye ni likhunga toh application.pro mai defualt 2121 port lega //
 public class FtpServerConfig {
@@ -25,6 +28,50 @@ public class FtpServerConfig {
     private int maxThreads = 20;
     private int passivePortRangeStart = 50000;
     private int passivePortRangeEnd = 50100;
+    private int fileIndexParallelism = Runtime.getRuntime().availableProcessors();
+    private boolean fileIndexWatch = true;
+    private int fileIndexMaxWatches = 65536;
+    private int fileIndexRescanSeconds = 900;
+    private int findMaxResults = 1000;
+    private int recursiveParallelism = Runtime.getRuntime().availableProcessors();
+    private String quotaLedgerFile = "ftp-quota.ledger";
+    private int quotaFlushIntervalSeconds = 30;
+    private int quotaReconcileIntervalMinutes = 60;
+    private long guestMaxBytes = 0;
+    private long guestMaxFiles = 0;
+    private int lockStripes = 1024;
+    private long lockTimeoutMillis = 5000;
+    private int transferBufferSize = 64 * 1024;
+    private long bufferPoolMaxBytes = 64L * 1024 * 1024;
+    private long sessionBufferMaxBytes = 1024 * 1024;
+    private int idleTimeoutSeconds = 300;
+    private int dataConnectionTimeoutMillis = 30000;
+    private int transferStallTimeoutSeconds = 60;
+    private long reapGraceMillis = 5000;
+    private int reaperThreads = 4;
+    private int reaperQueueCapacity = 1024;
+    private long timerTickMillis = 100;
+    private int timerWheelSize = 512;
+    private int acceptorThreads = 1;
+    private int acceptBacklog = 50;
+    private List<String> bindAddresses = new ArrayList<>();
+    private boolean reusePort = false;
+    private int asciiSizeCacheEntries = 10000;
+    private long asciiSizeMaxScanBytes = 16L * 1024 * 1024;
+    private boolean jfrRecording = false;
+    private String jfrDumpFile = "ftp-server.jfr";
+    private int jfrMaxAgeMinutes = 60;
+    private long jfrMaxSizeMegabytes = 250;
+    private String uploadJournalDirectory = "ftp-upload-journal";
+    private long uploadJournalSegmentBytes = 64L * 1024 * 1024;
+    private boolean uploadJournalFsync = true;
+    private int uploadJournalMaxBatch = 512;
+    private long uploadJournalCommitTimeoutMillis = 1000;
+    private int uploadEventThreads = 2;
+    private int uploadEventQueueCapacity = 1024;
+    private String transferLogFile = "xferlog";
+    private int transferLogBufferSize = 8192;
+    private long transferLogFlushIntervalMillis = 200;
 
     // Getters and Setters
     public int getPort() {
@@ -66,4 +113,356 @@ public class FtpServerConfig {
     public void setPassivePortRangeEnd(int passivePortRangeEnd) {
         this.passivePortRangeEnd = passivePortRangeEnd;
     }
+
+    public int getFileIndexParallelism() {
+        return fileIndexParallelism;
+    }
+
+    public void setFileIndexParallelism(int fileIndexParallelism) {
+        this.fileIndexParallelism = fileIndexParallelism;
+    }
+
+    public boolean isFileIndexWatch() {
+        return fileIndexWatch;
+    }
+
+    public void setFileIndexWatch(boolean fileIndexWatch) {
+        this.fileIndexWatch = fileIndexWatch;
+    }
+
+    public int getFileIndexMaxWatches() {
+        return fileIndexMaxWatches;
+    }
+
+    public void setFileIndexMaxWatches(int fileIndexMaxWatches) {
+        this.fileIndexMaxWatches = fileIndexMaxWatches;
+    }
+
+    public int getFileIndexRescanSeconds() {
+        return fileIndexRescanSeconds;
+    }
+
+    public void setFileIndexRescanSeconds(int fileIndexRescanSeconds) {
+        this.fileIndexRescanSeconds = fileIndexRescanSeconds;
+    }
+
+    public int getFindMaxResults() {
+        return findMaxResults;
+    }
+
+    public void setFindMaxResults(int findMaxResults) {
+        this.findMaxResults = findMaxResults;
+    }
+
+    public int getRecursiveParallelism() {
+        return recursiveParallelism;
+    }
+
+    public void setRecursiveParallelism(int recursiveParallelism) {
+        this.recursiveParallelism = recursiveParallelism;
+    }
+
+    public String getQuotaLedgerFile() {
+        return quotaLedgerFile;
+    }
+
+    public void setQuotaLedgerFile(String quotaLedgerFile) {
+        this.quotaLedgerFile = quotaLedgerFile;
+    }
+
+    public int getQuotaFlushIntervalSeconds() {
+        return quotaFlushIntervalSeconds;
+    }
+
+    public void setQuotaFlushIntervalSeconds(int quotaFlushIntervalSeconds) {
+        this.quotaFlushIntervalSeconds = quotaFlushIntervalSeconds;
+    }
+
+    public int getQuotaReconcileIntervalMinutes() {
+        return quotaReconcileIntervalMinutes;
+    }
+
+    public void setQuotaReconcileIntervalMinutes(int quotaReconcileIntervalMinutes) {
+        this.quotaReconcileIntervalMinutes = quotaReconcileIntervalMinutes;
+    }
+
+    public long getGuestMaxBytes() {
+        return guestMaxBytes;
+    }
+
+    public void setGuestMaxBytes(long guestMaxBytes) {
+        this.guestMaxBytes = guestMaxBytes;
+    }
+
+    public long getGuestMaxFiles() {
+        return guestMaxFiles;
+    }
+
+    public void setGuestMaxFiles(long guestMaxFiles) {
+        this.guestMaxFiles = guestMaxFiles;
+    }
+
+    public int getLockStripes() {
+        return lockStripes;
+    }
+
+    public void setLockStripes(int lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+
+    public long getLockTimeoutMillis() {
+        return lockTimeoutMillis;
+    }
+
+    public void setLockTimeoutMillis(long lockTimeoutMillis) {
+        this.lockTimeoutMillis = lockTimeoutMillis;
+    }
+
+    public int getTransferBufferSize() {
+        return transferBufferSize;
+    }
+
+    public void setTransferBufferSize(int transferBufferSize) {
+        this.transferBufferSize = transferBufferSize;
+    }
+
+    public long getBufferPoolMaxBytes() {
+        return bufferPoolMaxBytes;
+    }
+
+    public void setBufferPoolMaxBytes(long bufferPoolMaxBytes) {
+        this.bufferPoolMaxBytes = bufferPoolMaxBytes;
+    }
+
+    public long getSessionBufferMaxBytes() {
+        return sessionBufferMaxBytes;
+    }
+
+    public void setSessionBufferMaxBytes(long sessionBufferMaxBytes) {
+        this.sessionBufferMaxBytes = sessionBufferMaxBytes;
+    }
+
+    public int getIdleTimeoutSeconds() {
+        return idleTimeoutSeconds;
+    }
+
+    public void setIdleTimeoutSeconds(int idleTimeoutSeconds) {
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+    }
+
+    public int getDataConnectionTimeoutMillis() {
+        return dataConnectionTimeoutMillis;
+    }
+
+    public void setDataConnectionTimeoutMillis(int dataConnectionTimeoutMillis) {
+        this.dataConnectionTimeoutMillis = dataConnectionTimeoutMillis;
+    }
+
+    public int getTransferStallTimeoutSeconds() {
+        return transferStallTimeoutSeconds;
+    }
+
+    public void setTransferStallTimeoutSeconds(int transferStallTimeoutSeconds) {
+        this.transferStallTimeoutSeconds = transferStallTimeoutSeconds;
+    }
+
+    public long getReapGraceMillis() {
+        return reapGraceMillis;
+    }
+
+    public void setReapGraceMillis(long reapGraceMillis) {
+        this.reapGraceMillis = reapGraceMillis;
+    }
+
+    public int getReaperThreads() {
+        return reaperThreads;
+    }
+
+    public void setReaperThreads(int reaperThreads) {
+        this.reaperThreads = reaperThreads;
+    }
+
+    public int getReaperQueueCapacity() {
+        return reaperQueueCapacity;
+    }
+
+    public void setReaperQueueCapacity(int reaperQueueCapacity) {
+        this.reaperQueueCapacity = reaperQueueCapacity;
+    }
+
+    public long getTimerTickMillis() {
+        return timerTickMillis;
+    }
+
+    public void setTimerTickMillis(long timerTickMillis) {
+        this.timerTickMillis = timerTickMillis;
+    }
+
+    public int getTimerWheelSize() {
+        return timerWheelSize;
+    }
+
+    public void setTimerWheelSize(int timerWheelSize) {
+        this.timerWheelSize = timerWheelSize;
+    }
+
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+
+    public void setAcceptorThreads(int acceptorThreads) {
+        this.acceptorThreads = acceptorThreads;
+    }
+
+    public int getAcceptBacklog() {
+        return acceptBacklog;
+    }
+
+    public void setAcceptBacklog(int acceptBacklog) {
+        this.acceptBacklog = acceptBacklog;
+    }
+
+    public List<String> getBindAddresses() {
+        return bindAddresses;
+    }
+
+    public void setBindAddresses(List<String> bindAddresses) {
+        this.bindAddresses = bindAddresses;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public void setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+    }
+
+    public int getAsciiSizeCacheEntries() {
+        return asciiSizeCacheEntries;
+    }
+
+    public void setAsciiSizeCacheEntries(int asciiSizeCacheEntries) {
+        this.asciiSizeCacheEntries = asciiSizeCacheEntries;
+    }
+
+    public long getAsciiSizeMaxScanBytes() {
+        return asciiSizeMaxScanBytes;
+    }
+
+    public void setAsciiSizeMaxScanBytes(long asciiSizeMaxScanBytes) {
+        this.asciiSizeMaxScanBytes = asciiSizeMaxScanBytes;
+    }
+
+    public boolean isJfrRecording() {
+        return jfrRecording;
+    }
+
+    public void setJfrRecording(boolean jfrRecording) {
+        this.jfrRecording = jfrRecording;
+    }
+
+    public String getJfrDumpFile() {
+        return jfrDumpFile;
+    }
+
+    public void setJfrDumpFile(String jfrDumpFile) {
+        this.jfrDumpFile = jfrDumpFile;
+    }
+
+    public int getJfrMaxAgeMinutes() {
+        return jfrMaxAgeMinutes;
+    }
+
+    public void setJfrMaxAgeMinutes(int jfrMaxAgeMinutes) {
+        this.jfrMaxAgeMinutes = jfrMaxAgeMinutes;
+    }
+
+    public long getJfrMaxSizeMegabytes() {
+        return jfrMaxSizeMegabytes;
+    }
+
+    public void setJfrMaxSizeMegabytes(long jfrMaxSizeMegabytes) {
+        this.jfrMaxSizeMegabytes = jfrMaxSizeMegabytes;
+    }
+
+    public String getUploadJournalDirectory() {
+        return uploadJournalDirectory;
+    }
+
+    public void setUploadJournalDirectory(String uploadJournalDirectory) {
+        this.uploadJournalDirectory = uploadJournalDirectory;
+    }
+
+    public long getUploadJournalSegmentBytes() {
+        return uploadJournalSegmentBytes;
+    }
+
+    public void setUploadJournalSegmentBytes(long uploadJournalSegmentBytes) {
+        this.uploadJournalSegmentBytes = uploadJournalSegmentBytes;
+    }
+
+    public boolean isUploadJournalFsync() {
+        return uploadJournalFsync;
+    }
+
+    public void setUploadJournalFsync(boolean uploadJournalFsync) {
+        this.uploadJournalFsync = uploadJournalFsync;
+    }
+
+    public int getUploadJournalMaxBatch() {
+        return uploadJournalMaxBatch;
+    }
+
+    public void setUploadJournalMaxBatch(int uploadJournalMaxBatch) {
+        this.uploadJournalMaxBatch = uploadJournalMaxBatch;
+    }
+
+    public long getUploadJournalCommitTimeoutMillis() {
+        return uploadJournalCommitTimeoutMillis;
+    }
+
+    public void setUploadJournalCommitTimeoutMillis(long uploadJournalCommitTimeoutMillis) {
+        this.uploadJournalCommitTimeoutMillis = uploadJournalCommitTimeoutMillis;
+    }
+
+    public int getUploadEventThreads() {
+        return uploadEventThreads;
+    }
+
+    public void setUploadEventThreads(int uploadEventThreads) {
+        this.uploadEventThreads = uploadEventThreads;
+    }
+
+    public int getUploadEventQueueCapacity() {
+        return uploadEventQueueCapacity;
+    }
+
+    public void setUploadEventQueueCapacity(int uploadEventQueueCapacity) {
+        this.uploadEventQueueCapacity = uploadEventQueueCapacity;
+    }
+
+    public String getTransferLogFile() {
+        return transferLogFile;
+    }
+
+    public void setTransferLogFile(String transferLogFile) {
+        this.transferLogFile = transferLogFile;
+    }
+
+    public int getTransferLogBufferSize() {
+        return transferLogBufferSize;
+    }
+
+    public void setTransferLogBufferSize(int transferLogBufferSize) {
+        this.transferLogBufferSize = transferLogBufferSize;
+    }
+
+    public long getTransferLogFlushIntervalMillis() {
+        return transferLogFlushIntervalMillis;
+    }
+
+    public void setTransferLogFlushIntervalMillis(long transferLogFlushIntervalMillis) {
+        this.transferLogFlushIntervalMillis = transferLogFlushIntervalMillis;
+    }
 }
@@ -0,0 +1,29 @@
+package com.ftpServer.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Time the control thread spent waiting for the client to open a passive
+ * data connection.
+ */
+@Name("com.ftpServer.DataAccept")
+@Label("FTP Data Connection Accept")
+@Category({"FTP Server", "Data"})
+@Description("Wait for a client to connect to a passive data port")
+@StackTrace(false)
+public class DataAcceptEvent extends Event {
+
+    @Label("Port")
+    public int port;
+
+    @Label("Remote Address")
+    public String remoteAddress;
+
+    @Label("Timed Out")
+    public boolean timedOut;
+}
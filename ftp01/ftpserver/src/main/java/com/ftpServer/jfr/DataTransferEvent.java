@@ -0,0 +1,42 @@
+package com.ftpServer.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Bytes moved over one data connection, from the first read until the
+ * connection is closed.
+ */
+@Name("com.ftpServer.DataTransfer")
+@Label("FTP Data Transfer")
+@Category({"FTP Server", "Data"})
+@Description("File or listing sent or received over a data connection")
+@StackTrace(false)
+public class DataTransferEvent extends Event {
+
+    public static final String DOWNLOAD = "download";
+    public static final String UPLOAD = "upload";
+    public static final String LISTING = "listing";
+
+    @Label("Direction")
+    public String direction;
+
+    @Label("Path")
+    public String path;
+
+    @Label("ASCII Mode")
+    public boolean ascii;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Completed")
+    @Description("False if the transfer failed or was cut off")
+    public boolean completed;
+}
@@ -0,0 +1,31 @@
+package com.ftpServer.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One control-connection command, from the moment it is read until its
+ * handler returns. Transfers run inside RETR/STOR/LIST, so their time is
+ * included here as well as in {@link DataTransferEvent}.
+ */
+@Name("com.ftpServer.Command")
+@Label("FTP Command")
+@Category({"FTP Server", "Control"})
+@Description("Handling of one FTP command")
+@StackTrace(false)
+public class FtpCommandEvent extends Event {
+
+    @Label("Verb")
+    public String verb;
+
+    @Label("User")
+    public String user;
+
+    @Label("Reply Code")
+    @Description("Last reply code sent while handling the command")
+    public int replyCode;
+}
@@ -0,0 +1,27 @@
+package com.ftpServer.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Time an accepted connection waited in the session executor's queue
+ * before a worker thread picked it up.
+ */
+@Name("com.ftpServer.SessionQueue")
+@Label("FTP Session Queueing")
+@Category({"FTP Server", "Control"})
+@Description("Delay between accepting a connection and starting its session")
+@StackTrace(false)
+public class SessionQueueEvent extends Event {
+
+    @Label("Remote Address")
+    public String remoteAddress;
+
+    @Label("Queue Length")
+    @Description("Sessions already waiting when this one was queued")
+    public int queueLength;
+}
@@ -5,12 +5,21 @@ public class FtpUser {
     private String password;
     private String homeDirectory;
     private boolean canWrite;
+    private long maxBytes;  // 0 = unlimited
+    private long maxFiles;  // 0 = unlimited
 
     public FtpUser(String username, String password, String homeDirectory, boolean canWrite) {
+        this(username, password, homeDirectory, canWrite, 0, 0);
+    }
+
+    public FtpUser(String username, String password, String homeDirectory, boolean canWrite,
+                   long maxBytes, long maxFiles) {
         this.username = username;
         this.password = password;
         this.homeDirectory = homeDirectory;
         this.canWrite = canWrite;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
     }
 
     // Getters and Setters
@@ -45,4 +54,24 @@ public class FtpUser {
     public void setCanWrite(boolean canWrite) {
         this.canWrite = canWrite;
     }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxFiles() {
+        return maxFiles;
+    }
+
+    public void setMaxFiles(long maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    public boolean hasQuota() {
+        return maxBytes > 0 || maxFiles > 0;
+    }
 }
@@ -0,0 +1,50 @@
+package com.ftpServer.model;
+
+import java.nio.file.Path;
+
+/**
+ * A completed upload, as recorded in the upload journal. The sequence
+ * number is assigned by the journal and increases by one per event.
+ */
+public class UploadEvent {
+    private final long sequence;
+    private final long timestamp;   // epoch millis
+    private final String username;
+    private final Path path;
+    private final long size;
+
+    public UploadEvent(long sequence, long timestamp, String username, Path path, long size) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.username = username;
+        this.path = path;
+        this.size = size;
+    }
+
+    // Getters
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "UploadEvent{sequence=" + sequence + ", username='" + username + "', path=" + path
+                + ", size=" + size + "}";
+    }
+}
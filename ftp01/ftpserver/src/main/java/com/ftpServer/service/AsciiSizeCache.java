@@ -0,0 +1,125 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.service.BufferPool.BufferLease;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers how large files are once translated for TYPE A, so SIZE does
+ * not rescan a large text file on every call. Entries are validated against
+ * the file's size and modification time and dropped by STOR and DELE.
+ * Files larger than the scan limit are never read for SIZE; they are only
+ * known once an ASCII download has counted them.
+ */
+@Service
+public class AsciiSizeCache {
+
+    private final BufferPool bufferPool;
+    private final int bufferSize;
+    private final int maxEntries;
+    private final long maxScanBytes;
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    public AsciiSizeCache(FtpServerConfig config, BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        this.bufferSize = config.getTransferBufferSize();
+        this.maxEntries = config.getAsciiSizeCacheEntries();
+        this.maxScanBytes = config.getAsciiSizeMaxScanBytes();
+    }
+
+    /**
+     * Returns the size of the file as sent in ASCII mode, or -1 if it is not
+     * cached and too large to scan.
+     */
+    public long asciiSize(Path file, BufferPool.Account account) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long modified = attrs.lastModifiedTime().toMillis();
+
+        Entry cached = entries.get(file);
+        if (cached != null && cached.size == attrs.size() && cached.modified == modified) {
+            return cached.asciiSize;
+        }
+        if (attrs.size() > maxScanBytes) {
+            return -1;
+        }
+
+        long asciiSize = attrs.size() + countBareLineFeeds(file, account);
+        put(file, new Entry(attrs.size(), modified, asciiSize));
+        return asciiSize;
+    }
+
+    /**
+     * Records the ASCII size counted by a complete download. The caller must
+     * hold a lock that keeps the file unchanged since the download started.
+     */
+    public void remember(Path file, long asciiSize) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            put(file, new Entry(attrs.size(), attrs.lastModifiedTime().toMillis(), asciiSize));
+        } catch (IOException e) {
+            // Not worth failing a finished download over; SIZE will just not know it
+            entries.remove(file);
+        }
+    }
+
+    public void invalidate(Path file) {
+        entries.remove(file);
+    }
+
+    private long countBareLineFeeds(Path file, BufferPool.Account account) throws IOException {
+        try (BufferLease lease = bufferPool.lease(bufferSize, account);
+             FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            ByteBuffer buffer = lease.buffer();
+            long count = 0;
+            byte previous = 0;
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                if (buffer.hasRemaining()) {
+                    count += AsciiTranslator.countBareLineFeeds(buffer, previous);
+                    previous = buffer.get(buffer.limit() - 1);
+                }
+                buffer.clear();
+            }
+            return count;
+        }
+    }
+
+    private void put(Path file, Entry entry) {
+        if (entries.size() >= maxEntries) {
+            evictOne();
+        }
+        entries.put(file, entry);
+    }
+
+    private void evictOne() {
+        Iterator<Path> keys = entries.keySet().iterator();
+        if (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final long asciiSize;
+
+        Entry(long size, long modified, long asciiSize) {
+            this.size = size;
+            this.modified = modified;
+            this.asciiSize = asciiSize;
+        }
+    }
+}
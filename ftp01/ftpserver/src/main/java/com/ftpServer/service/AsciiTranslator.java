@@ -0,0 +1,140 @@
+package com.ftpServer.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming TYPE A translation between local LF line endings and CRLF on
+ * the wire. One instance serves one transfer: it carries the CR state across
+ * buffer boundaries and never allocates.
+ *
+ * Line breaks are found eight bytes at a time (SWAR), so runs of text
+ * between newlines are copied in bulk.
+ */
+public final class AsciiTranslator {
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private static final VarHandle LONG_LE =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    private boolean lastWasCr = false;   // encode: last byte copied was CR
+    private boolean pendingCr = false;   // decode: CR seen, waiting for the next byte
+
+    /**
+     * Copies {@code src} into {@code dst}, turning bare LF into CRLF. Stops
+     * when {@code src} is drained or {@code dst} is full.
+     */
+    public void encode(ByteBuffer src, ByteBuffer dst) {
+        while (src.hasRemaining()) {
+            int pos = src.position();
+            int newline = indexOf(src, pos, src.limit(), LF);
+            int end = newline < 0 ? src.limit() : newline;
+
+            if (!copy(src, dst, end - pos)) return;
+            if (newline < 0) return;
+
+            if (dst.remaining() < 2) return;
+            if (!lastWasCr) {
+                dst.put(CR);
+            }
+            dst.put(LF);
+            src.position(newline + 1);
+            lastWasCr = false;
+        }
+    }
+
+    /**
+     * Copies {@code src} into {@code dst}, turning CRLF into LF. A CR at the
+     * end of {@code src} is held back until the next call or {@link #finish}.
+     */
+    public void decode(ByteBuffer src, ByteBuffer dst) {
+        while (src.hasRemaining() && dst.hasRemaining()) {
+            if (pendingCr) {
+                if (src.get(src.position()) != LF) {
+                    dst.put(CR);
+                }
+                pendingCr = false;
+                continue;
+            }
+
+            int pos = src.position();
+            int cr = indexOf(src, pos, src.limit(), CR);
+            int end = cr < 0 ? src.limit() : cr;
+
+            if (!copy(src, dst, end - pos)) return;
+            if (cr < 0) return;
+
+            src.position(cr + 1);
+            pendingCr = true;
+        }
+    }
+
+    /**
+     * Flushes a CR held back by {@link #decode}; {@code dst} needs one free byte.
+     */
+    public void finish(ByteBuffer dst) {
+        if (pendingCr) {
+            dst.put(CR);
+            pendingCr = false;
+        }
+    }
+
+    /**
+     * Counts LF bytes in {@code buffer} that {@link #encode} would expand to
+     * CRLF. {@code previousByte} is the byte before the buffer, or 0.
+     */
+    public static long countBareLineFeeds(ByteBuffer buffer, byte previousByte) {
+        long count = 0;
+        int from = buffer.position();
+        int limit = buffer.limit();
+        int newline;
+        while ((newline = indexOf(buffer, from, limit, LF)) >= 0) {
+            byte before = newline == buffer.position() ? previousByte : buffer.get(newline - 1);
+            if (before != CR) count++;
+            from = newline + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Index of the first {@code value} in {@code buffer[from, to)}, or -1.
+     */
+    static int indexOf(ByteBuffer buffer, int from, int to, byte value) {
+        long pattern = (value & 0xFFL) * ONES;
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = (long) LONG_LE.get(buffer, i) ^ pattern;
+            long found = (word - ONES) & ~word & HIGHS;
+            if (found != 0) {
+                // Little-endian: the lowest set bit is the first match in memory
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (buffer.get(i) == value) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Bulk-copies up to {@code length} bytes; returns false if {@code dst}
+     * filled up first.
+     */
+    private boolean copy(ByteBuffer src, ByteBuffer dst, int length) {
+        int run = Math.min(length, dst.remaining());
+        if (run > 0) {
+            int pos = src.position();
+            dst.put(dst.position(), src, pos, run);
+            dst.position(dst.position() + run);
+            src.position(pos + run);
+            lastWasCr = src.get(pos + run - 1) == CR;
+        }
+        return run == length;
+    }
+}
@@ -0,0 +1,202 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared pool of direct buffers for data transfers and listings.
+ *
+ * Buffers come in a few size classes and are leased for the duration of a
+ * transfer; closing the lease puts the buffer back. Leases are charged to a
+ * per-session {@link Account} and to the pool, and a lease that would take
+ * either over its cap is refused instead of allocating more memory.
+ */
+@Service
+public class BufferPool implements MeterBinder {
+
+    private static final int[] SIZE_CLASSES = {8 * 1024, 64 * 1024, 256 * 1024};
+
+    private final long maxPoolBytes;
+    private final long maxSessionBytes;
+    @SuppressWarnings("unchecked")
+    private final ConcurrentLinkedQueue<ByteBuffer>[] freeLists = new ConcurrentLinkedQueue[SIZE_CLASSES.length];
+
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong outstandingBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public BufferPool(FtpServerConfig config) {
+        this.maxPoolBytes = config.getBufferPoolMaxBytes();
+        this.maxSessionBytes = config.getSessionBufferMaxBytes();
+        for (int i = 0; i < freeLists.length; i++) {
+            freeLists[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    public Account newAccount() {
+        return new Account(maxSessionBytes);
+    }
+
+    /**
+     * Leases a buffer of at least {@code minSize} bytes, or of the largest
+     * size class if {@code minSize} is bigger than that.
+     */
+    public BufferLease lease(int minSize, Account account) throws BufferPoolExhaustedException {
+        int sizeClass = sizeClassFor(minSize);
+        int size = SIZE_CLASSES[sizeClass];
+
+        if (!account.reserve(size)) {
+            rejections.increment();
+            throw new BufferPoolExhaustedException("Session buffer limit of " + account.limit + " bytes reached");
+        }
+        if (outstandingBytes.addAndGet(size) > maxPoolBytes) {
+            outstandingBytes.addAndGet(-size);
+            account.release(size);
+            rejections.increment();
+            throw new BufferPoolExhaustedException("Buffer pool limit of " + maxPoolBytes + " bytes reached");
+        }
+
+        ByteBuffer buffer = freeLists[sizeClass].poll();
+        if (buffer != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            makeRoomFor(size);
+            buffer = ByteBuffer.allocateDirect(size);
+            allocatedBytes.addAndGet(size);
+        }
+        buffer.clear();
+        return new BufferLease(buffer, sizeClass, account);
+    }
+
+    public long getOutstandingBytes() {
+        return outstandingBytes.get();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ftp.buffer.pool.hits", hits, LongAdder::sum)
+                .description("Buffer leases served from the pool")
+                .register(registry);
+        FunctionCounter.builder("ftp.buffer.pool.misses", misses, LongAdder::sum)
+                .description("Buffer leases that allocated a new buffer")
+                .register(registry);
+        FunctionCounter.builder("ftp.buffer.pool.rejections", rejections, LongAdder::sum)
+                .description("Buffer leases refused by the session or pool limit")
+                .register(registry);
+        Gauge.builder("ftp.buffer.pool.hit.rate", this, BufferPool::getHitRate)
+                .description("Share of buffer leases served from the pool")
+                .register(registry);
+        Gauge.builder("ftp.buffer.pool.outstanding", outstandingBytes, AtomicLong::get)
+                .description("Bytes currently leased")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("ftp.buffer.pool.allocated", allocatedBytes, AtomicLong::get)
+                .description("Direct memory held by the pool, leased or free")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private int sizeClassFor(int minSize) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (SIZE_CLASSES[i] >= minSize) return i;
+        }
+        return SIZE_CLASSES.length - 1;
+    }
+
+    /**
+     * Drops free buffers of any class until a new allocation fits under the
+     * pool limit. The memory itself is returned when the buffers are collected.
+     */
+    private void makeRoomFor(int size) {
+        for (int i = SIZE_CLASSES.length - 1; i >= 0 && allocatedBytes.get() + size > maxPoolBytes; i--) {
+            while (allocatedBytes.get() + size > maxPoolBytes && freeLists[i].poll() != null) {
+                allocatedBytes.addAndGet(-SIZE_CLASSES[i]);
+            }
+        }
+    }
+
+    private void release(ByteBuffer buffer, int sizeClass, Account account) {
+        int size = SIZE_CLASSES[sizeClass];
+        account.release(size);
+        outstandingBytes.addAndGet(-size);
+        freeLists[sizeClass].offer(buffer);
+    }
+
+    /**
+     * Buffer memory held by one session.
+     */
+    public static final class Account {
+        private final long limit;
+        private final AtomicLong leasedBytes = new AtomicLong();
+
+        private Account(long limit) {
+            this.limit = limit;
+        }
+
+        public long getLeasedBytes() {
+            return leasedBytes.get();
+        }
+
+        private boolean reserve(int size) {
+            if (leasedBytes.addAndGet(size) > limit) {
+                leasedBytes.addAndGet(-size);
+                return false;
+            }
+            return true;
+        }
+
+        private void release(int size) {
+            leasedBytes.addAndGet(-size);
+        }
+    }
+
+    /**
+     * A leased buffer; closing the lease returns it to the pool.
+     */
+    public final class BufferLease implements AutoCloseable {
+        private final ByteBuffer buffer;
+        private final int sizeClass;
+        private final Account account;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private BufferLease(ByteBuffer buffer, int sizeClass, Account account) {
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+            this.account = account;
+        }
+
+        public ByteBuffer buffer() {
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(buffer, sizeClass, account);
+            }
+        }
+    }
+}
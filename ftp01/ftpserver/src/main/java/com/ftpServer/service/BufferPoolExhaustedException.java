@@ -0,0 +1,13 @@
+package com.ftpServer.service;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a transfer buffer would exceed the session or pool memory limit.
+ */
+public class BufferPoolExhaustedException extends IOException {
+
+    public BufferPoolExhaustedException(String message) {
+        super(message);
+    }
+}
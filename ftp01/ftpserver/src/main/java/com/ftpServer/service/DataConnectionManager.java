@@ -3,99 +3,298 @@ package com.ftpServer.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ftpServer.jfr.DataAcceptEvent;
+import com.ftpServer.jfr.DataTransferEvent;
+import com.ftpServer.service.BufferPool.BufferLease;
+import com.ftpServer.service.HashedTimerWheel.Timeout;
+import com.ftpServer.service.SessionTimeoutService.Reason;
+
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.net.SocketTimeoutException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
 
 public class DataConnectionManager {
     private static final Logger logger = LoggerFactory.getLogger(DataConnectionManager.class);
 
     private final ServerSocket dataServerSocket;
-    private Socket dataSocket;
+    private final BufferPool bufferPool;
+    private final BufferPool.Account account;
+    private final int bufferSize;
+    private final SessionTimeoutService timeouts;
+    private volatile Socket dataSocket;
+
+    private volatile boolean acceptTimedOut = false;
+    private volatile long lastProgressNanos;
+    // While a listing is open only time spent blocked on the client counts
+    private volatile boolean listingOpen = false;
+    private volatile long drainStartedNanos = 0;
+    private volatile Timeout stallTimeout;
+    private long transferredBytes;
 
-    public DataConnectionManager(ServerSocket dataServerSocket) {
-        this.dataServerSocket = dataServerSocket;
+    // Sockets accepted through a channel expose getChannel(), which lets
+    // transfers read and write pooled direct buffers
+    public DataConnectionManager(ServerSocketChannel dataServerChannel, BufferPool bufferPool,
+                                 BufferPool.Account account, int bufferSize, SessionTimeoutService timeouts) {
+        this.dataServerSocket = dataServerChannel.socket();
+        this.bufferPool = bufferPool;
+        this.account = account;
+        this.bufferSize = bufferSize;
+        this.timeouts = timeouts;
     }
 
     public void waitForConnection(int timeoutMs) throws IOException {
-        logger.info("Waiting for data connection on port: {}", dataServerSocket.getLocalPort());
+        logger.debug("Waiting for data connection on port: {}", dataServerSocket.getLocalPort());
+
+        transferredBytes = 0;
+        DataAcceptEvent event = new DataAcceptEvent();
+        event.begin();
 
-        dataServerSocket.setSoTimeout(timeoutMs);
+        // The timer wheel closes the listening socket, which breaks the accept
+        Timeout acceptTimeout = timeouts.schedule(this::acceptTimedOut, timeoutMs, TimeUnit.MILLISECONDS);
         try {
             dataSocket = dataServerSocket.accept();
-            logger.info("Data connection accepted from: {}", dataSocket.getRemoteSocketAddress());
-        } catch (SocketTimeoutException e) {
-            logger.error("Data connection timeout after {}ms", timeoutMs);
-            throw new IOException("Data connection timeout", e);
+            logger.debug("Data connection accepted from: {}", dataSocket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            if (acceptTimedOut) {
+                logger.error("Data connection timeout after {}ms", timeoutMs);
+                throw new IOException("Data connection timeout", e);
+            }
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.port = dataServerSocket.getLocalPort();
+                event.timedOut = acceptTimedOut;
+                Socket socket = dataSocket;
+                event.remoteAddress = socket != null ? String.valueOf(socket.getRemoteSocketAddress()) : null;
+                event.commit();
+            }
+            acceptTimedOut = false;
+            acceptTimeout.cancel();
         }
+
+        lastProgressNanos = System.nanoTime();
+        scheduleStallCheck(timeouts.getTransferStallTimeoutNanos());
     }
 
-    public void sendDirectoryListing(String listing) throws IOException {
+    /**
+     * Opens the data connection for a listing that is written as it is
+     * produced. The caller closes the writer and then this manager.
+     */
+    public Writer openListingWriter() throws IOException {
         if (dataSocket == null || dataSocket.isClosed()) {
             throw new IOException("Data socket not connected");
         }
 
-        try (OutputStream out = dataSocket.getOutputStream()) {
-            out.write(listing.getBytes());
-            out.flush();
-            logger.info("Directory listing sent: {} bytes", listing.length());
+        return new OutputStreamWriter(new ChannelOutputStream(bufferPool.lease(bufferSize, account)));
+    }
+
+    /**
+     * Sends a file; in ASCII mode line endings go out as CRLF, otherwise the
+     * bytes are copied unchanged.
+     */
+    public void sendFile(Path filePath, boolean ascii) throws IOException {
+        if (dataSocket == null || dataSocket.isClosed()) {
+            throw new IOException("Data socket not connected");
+        }
+
+        DataTransferEvent event = new DataTransferEvent();
+        event.begin();
+        transferredBytes = 0;
+        boolean completed = false;
+        try {
+            if (ascii) {
+                sendAsciiFile(filePath);
+            } else {
+                sendBinaryFile(filePath);
+            }
+            completed = true;
         } finally {
             close();
+            commitTransfer(event, DataTransferEvent.DOWNLOAD, filePath, ascii, completed);
         }
     }
 
-    public void sendFile(Path filePath) throws IOException {
+    /**
+     * Receives a file for {@code target} into {@code filePath}, failing with
+     * {@link QuotaExceededException} once the quota reservation has no room
+     * for what has been written. In ASCII mode CRLF is stored as LF. Returns
+     * the number of bytes written.
+     */
+    public long receiveFile(Path target, Path filePath, QuotaService.Reservation quota, boolean ascii)
+            throws IOException {
         if (dataSocket == null || dataSocket.isClosed()) {
             throw new IOException("Data socket not connected");
         }
 
-        try (OutputStream out = dataSocket.getOutputStream();
-             InputStream in = Files.newInputStream(filePath)) {
+        DataTransferEvent event = new DataTransferEvent();
+        event.begin();
+        transferredBytes = 0;
+        boolean completed = false;
+        try {
+            if (ascii) {
+                receiveAsciiFile(filePath, quota);
+            } else {
+                receiveBinaryFile(filePath, quota);
+            }
+            completed = true;
+            return transferredBytes;
+        } finally {
+            close();
+            commitTransfer(event, DataTransferEvent.UPLOAD, target, ascii, completed);
+        }
+    }
+
+    private void sendBinaryFile(Path filePath) throws IOException {
+        try (BufferLease lease = bufferPool.lease(bufferSize, account);
+             FileChannel in = FileChannel.open(filePath, StandardOpenOption.READ)) {
 
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            long totalBytes = 0;
+            SocketChannel out = dataSocket.getChannel();
+            ByteBuffer buffer = lease.buffer();
 
-            while ((bytesRead = in.read(buffer)) != -1) {
-                out.write(buffer, 0, bytesRead);
-                totalBytes += bytesRead;
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                transferredBytes += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+                lastProgressNanos = System.nanoTime();
             }
 
-            out.flush();
-            logger.info("File sent: {} bytes", totalBytes);
-        } finally {
-            close();
+            logger.debug("File sent: {} bytes", transferredBytes);
         }
     }
 
-    public void receiveFile(Path filePath) throws IOException {
-        if (dataSocket == null || dataSocket.isClosed()) {
-            throw new IOException("Data socket not connected");
+    private void receiveBinaryFile(Path filePath, QuotaService.Reservation quota) throws IOException {
+        try (BufferLease lease = bufferPool.lease(bufferSize, account);
+             FileChannel out = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            SocketChannel in = dataSocket.getChannel();
+            ByteBuffer buffer = lease.buffer();
+
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                if (!quota.cover(transferredBytes + buffer.remaining())) {
+                    throw new QuotaExceededException("Upload exceeds quota");
+                }
+                while (buffer.hasRemaining()) {
+                    transferredBytes += out.write(buffer);
+                }
+                buffer.clear();
+                lastProgressNanos = System.nanoTime();
+            }
+
+            logger.debug("File received: {} bytes", transferredBytes);
         }
+    }
 
-        try (InputStream in = dataSocket.getInputStream();
-             OutputStream out = Files.newOutputStream(filePath)) {
+    private void sendAsciiFile(Path filePath) throws IOException {
+        try (BufferLease srcLease = bufferPool.lease(bufferSize, account);
+             BufferLease dstLease = bufferPool.lease(bufferSize, account);
+             FileChannel in = FileChannel.open(filePath, StandardOpenOption.READ)) {
 
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            long totalBytes = 0;
+            SocketChannel out = dataSocket.getChannel();
+            ByteBuffer src = srcLease.buffer();
+            ByteBuffer dst = dstLease.buffer();
+            AsciiTranslator translator = new AsciiTranslator();
 
-            while ((bytesRead = in.read(buffer)) != -1) {
-                out.write(buffer, 0, bytesRead);
-                totalBytes += bytesRead;
+            while (in.read(src) != -1) {
+                src.flip();
+                while (src.hasRemaining()) {
+                    translator.encode(src, dst);
+                    transferredBytes += drain(dst, out);
+                }
+                src.clear();
+                lastProgressNanos = System.nanoTime();
             }
 
-            out.flush();
-            logger.info("File received: {} bytes", totalBytes);
-        } finally {
-            close();
+            logger.debug("File sent in ASCII mode: {} bytes", transferredBytes);
+        }
+    }
+
+    private void receiveAsciiFile(Path filePath, QuotaService.Reservation quota) throws IOException {
+        try (BufferLease srcLease = bufferPool.lease(bufferSize, account);
+             BufferLease dstLease = bufferPool.lease(bufferSize, account);
+             FileChannel out = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            SocketChannel in = dataSocket.getChannel();
+            ByteBuffer src = srcLease.buffer();
+            ByteBuffer dst = dstLease.buffer();
+            AsciiTranslator translator = new AsciiTranslator();
+
+            while (in.read(src) != -1) {
+                src.flip();
+                while (src.hasRemaining()) {
+                    translator.decode(src, dst);
+                    if (!quota.cover(transferredBytes + dst.position())) {
+                        throw new QuotaExceededException("Upload exceeds quota");
+                    }
+                    transferredBytes += drain(dst, out);
+                }
+                src.clear();
+                lastProgressNanos = System.nanoTime();
+            }
+
+            translator.finish(dst);
+            if (!quota.cover(transferredBytes + dst.position())) {
+                throw new QuotaExceededException("Upload exceeds quota");
+            }
+            transferredBytes += drain(dst, out);
+
+            logger.debug("File received in ASCII mode: {} bytes", transferredBytes);
+        }
+    }
+
+    private void commitTransfer(DataTransferEvent event, String direction, Path path,
+                                boolean ascii, boolean completed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.direction = direction;
+            event.bytes = transferredBytes;
+            event.path = path != null ? path.toString() : null;
+            event.ascii = ascii;
+            event.completed = completed;
+            event.commit();
         }
     }
 
+    /**
+     * Writes out everything put into {@code buffer} and clears it.
+     */
+    private static int drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return bytes;
+    }
+
+    /**
+     * Bytes moved by the last transfer on this connection, including one that failed.
+     */
+    public long getTransferredBytes() {
+        return transferredBytes;
+    }
+
     public void close() {
+        Timeout timeout = stallTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+
         try {
             if (dataSocket != null && !dataSocket.isClosed()) {
                 dataSocket.close();
@@ -109,4 +308,114 @@ public class DataConnectionManager {
             logger.error("Error closing data connection", e);
         }
     }
+
+    private void acceptTimedOut() {
+        acceptTimedOut = true;
+        timeouts.recordReaped(Reason.DATA_ACCEPT);
+        try {
+            dataServerSocket.close();
+        } catch (IOException e) {
+            logger.debug("Error closing timed out data server socket", e);
+        }
+    }
+
+    private void scheduleStallCheck(long delayNanos) {
+        if (delayNanos <= 0) return;
+        stallTimeout = timeouts.schedule(this::checkStall, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Closes the data connection once no bytes have moved for the stall
+     * timeout. A listing is produced while it is sent, and a walk can spend
+     * longer than that reading a large or slow directory before the buffer
+     * fills, so for listings the clock only runs while a drain is blocked
+     * on the client.
+     */
+    private void checkStall() {
+        Socket socket = dataSocket;
+        if (socket == null || socket.isClosed()) return;
+
+        long stallNanos = timeouts.getTransferStallTimeoutNanos();
+        long since = lastProgressNanos;
+        if (listingOpen) {
+            since = drainStartedNanos;
+            if (since == 0) {
+                scheduleStallCheck(stallNanos);
+                return;
+            }
+        }
+        long idleNanos = System.nanoTime() - since;
+        if (idleNanos < stallNanos) {
+            scheduleStallCheck(stallNanos - idleNanos);
+            return;
+        }
+
+        logger.warn("Closing data connection stalled for {}s", TimeUnit.NANOSECONDS.toSeconds(idleNanos));
+        timeouts.recordReaped(Reason.STALLED_TRANSFER);
+        close();
+    }
+
+    /**
+     * Buffers writes in a leased direct buffer and drains it to the data
+     * channel whenever it fills. Closing returns the buffer to the pool and
+     * records the listing as a {@link DataTransferEvent}.
+     */
+    private final class ChannelOutputStream extends OutputStream {
+        private final BufferLease lease;
+        private final ByteBuffer buffer;
+        private final DataTransferEvent event = new DataTransferEvent();
+
+        ChannelOutputStream(BufferLease lease) {
+            this.lease = lease;
+            this.buffer = lease.buffer();
+            transferredBytes = 0;
+            listingOpen = true;
+            event.begin();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) drain();
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) drain();
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+        }
+
+        @Override
+        public void close() throws IOException {
+            boolean completed = false;
+            try {
+                drain();
+                completed = true;
+            } finally {
+                listingOpen = false;
+                lease.close();
+                commitTransfer(event, DataTransferEvent.LISTING, null, true, completed);
+            }
+        }
+
+        private void drain() throws IOException {
+            drainStartedNanos = System.nanoTime() | 1;
+            try {
+                transferredBytes += DataConnectionManager.drain(buffer, dataSocket.getChannel());
+            } finally {
+                drainStartedNanos = 0;
+                lastProgressNanos = System.nanoTime();
+            }
+        }
+    }
 }
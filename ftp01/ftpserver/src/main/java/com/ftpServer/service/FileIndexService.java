@@ -0,0 +1,755 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory filename index over the FTP root directory.
+ *
+ * The tree mirrors the directory layout: each directory keeps its file names
+ * in a chunked sorted set and its sub-directories in a sorted copy-on-write
+ * array, so a file costs one String and one array slot, lookups are lock-free
+ * binary searches, and an insert copies one small chunk rather than the
+ * whole directory.
+ * The index is built in parallel at startup and kept in sync by the session
+ * handlers (STOR/DELE/MKD/RMD) and a filesystem watcher. Directories are
+ * registered with the watcher after the build, up to a configured number;
+ * past that, or when the platform refuses more watches, the index is
+ * rescanned periodically instead.
+ */
+@Service
+public class FileIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileIndexService.class);
+
+    private static final String[] NO_FILES = new String[0];
+    private static final DirNode[] NO_DIRS = new DirNode[0];
+    private static final NameSet.Chunk[] NO_CHUNKS = new NameSet.Chunk[0];
+
+    private final FtpServerConfig config;
+    private final Path rootDir;
+    private final DirNode root = new DirNode("");
+    private final LongAdder entryCount = new LongAdder();
+
+    private ForkJoinPool indexPool;
+    private WatchService watchService;
+    private Thread builder;
+    private volatile boolean ready = false;
+    private volatile boolean running = false;
+
+    // Only used by the builder thread once the build is done
+    private final Set<WatchKey> watchKeys = new HashSet<>();
+    private boolean watchingAll = true;
+
+    public FileIndexService(FtpServerConfig config) {
+        this.config = config;
+        this.rootDir = Paths.get(config.getRootDirectory()).toAbsolutePath();
+    }
+
+    /**
+     * Builds the index in the background and then follows filesystem changes.
+     * Commands keep being served while the build runs; see {@link #isReady()}.
+     */
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+
+        indexPool = new ForkJoinPool(Math.max(1, config.getFileIndexParallelism()));
+        if (config.isFileIndexWatch()) {
+            try {
+                watchService = FileSystems.getDefault().newWatchService();
+            } catch (IOException e) {
+                logger.warn("Filesystem watcher unavailable, index will only follow FTP commands", e);
+            }
+        }
+
+        builder = new Thread(this::buildAndWatch, "ftp-file-index");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long size() {
+        return entryCount.sum();
+    }
+
+    public void addFile(Path file) {
+        List<String> segments = segments(file);
+        if (segments == null || segments.isEmpty()) return;
+
+        DirNode parent = root;
+        for (int i = 0; i < segments.size() - 1; i++) {
+            parent = parent.getOrCreateDir(segments.get(i), entryCount);
+        }
+        parent.addFile(segments.get(segments.size() - 1), entryCount);
+    }
+
+    public void addDirectory(Path dir) {
+        List<String> segments = segments(dir);
+        if (segments == null) return;
+
+        DirNode node = root;
+        for (String segment : segments) {
+            node = node.getOrCreateDir(segment, entryCount);
+        }
+    }
+
+    /**
+     * Removes a file, or a directory together with everything indexed below it.
+     */
+    public void remove(Path path) {
+        List<String> segments = segments(path);
+        if (segments == null || segments.isEmpty()) return;
+
+        DirNode parent = root;
+        for (int i = 0; i < segments.size() - 1 && parent != null; i++) {
+            parent = parent.findDir(segments.get(i));
+        }
+        if (parent != null) {
+            parent.remove(segments.get(segments.size() - 1), entryCount);
+        }
+    }
+
+    /**
+     * Finds entries below {@code scope} whose name matches {@code pattern}.
+     * The pattern is a glob ({@code *} and {@code ?}); without wildcards it
+     * matches any name containing it. A glob that starts with literal text
+     * only looks at the names in each directory that share that prefix,
+     * found by binary search. Stale entries are pruned on the way.
+     */
+    public List<Path> find(Path scope, String pattern, int limit) {
+        List<String> segments = segments(scope);
+        if (segments == null) return Collections.emptyList();
+
+        DirNode start = root;
+        for (int i = 0; i < segments.size() && start != null; i++) {
+            start = start.findDir(segments.get(i));
+        }
+        if (start == null) return Collections.emptyList();
+
+        Matcher matcher = compile(pattern).matcher("");
+        String prefix = literalPrefix(pattern);
+        List<Path> matches = new ArrayList<>();
+        Deque<DirNode> nodes = new ArrayDeque<>();
+        Deque<Path> paths = new ArrayDeque<>();
+        nodes.push(start);
+        paths.push(scope.toAbsolutePath().normalize());
+
+        while (!nodes.isEmpty() && matches.size() < limit) {
+            DirNode node = nodes.pop();
+            Path dir = paths.pop();
+
+            node.files.forEachWithPrefix(prefix, name -> {
+                if (matcher.reset(name).matches()) {
+                    addIfExists(matches, dir.resolve(name));
+                }
+                return matches.size() < limit;
+            });
+            DirNode[] dirs = node.dirs;
+            for (int i = dirs.length - 1; i >= 0; i--) {
+                Path child = dir.resolve(dirs[i].name);
+                if (matches.size() < limit && dirs[i].name.startsWith(prefix)
+                        && matcher.reset(dirs[i].name).matches()) {
+                    addIfExists(matches, child);
+                }
+                nodes.push(dirs[i]);
+                paths.push(child);
+            }
+        }
+        return matches;
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            logger.error("Error closing filesystem watcher", e);
+        }
+        if (indexPool != null) {
+            indexPool.shutdownNow();
+        }
+        if (builder != null) {
+            builder.interrupt();
+        }
+    }
+
+    /**
+     * Directories that fail are skipped by their own task, so an exception
+     * here means the pool itself failed; the index is then served as far as
+     * it got rather than never becoming ready.
+     */
+    private void buildAndWatch() {
+        long startNanos = System.nanoTime();
+        try {
+            indexPool.invoke(new IndexTask(rootDir, root));
+            logger.info("File index built: {} entries in {} ms",
+                    entryCount.sum(), (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (RuntimeException e) {
+            if (!running) return;
+            logger.error("File index build failed after {} entries, SITE FIND results may be incomplete",
+                    entryCount.sum(), e);
+        }
+        ready = true;
+
+        if (config.isFileIndexWatch()) {
+            watchLoop();
+        }
+    }
+
+    private void watchLoop() {
+        if (watchService == null) {
+            watchingAll = false;
+        } else {
+            registerWatches(rootDir, root);
+            // Catch up with what changed while the build and registration ran
+            rescan();
+        }
+
+        long rescanNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getFileIndexRescanSeconds()));
+        long nextRescan = System.nanoTime() + rescanNanos;
+        while (running) {
+            try {
+                long untilRescan = nextRescan - System.nanoTime();
+                if (!watchingAll && untilRescan <= 0) {
+                    rescan();
+                    nextRescan = System.nanoTime() + rescanNanos;
+                    continue;
+                }
+
+                if (watchService == null) {
+                    TimeUnit.NANOSECONDS.sleep(untilRescan);
+                    continue;
+                }
+                WatchKey key = watchingAll ? watchService.take()
+                        : watchService.poll(untilRescan, TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    apply(key);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("File index watcher failed, continuing", e);
+            }
+        }
+    }
+
+    private void apply(WatchKey key) {
+        Path dir = (Path) key.watchable();
+        try {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                try {
+                    apply(dir, event);
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to apply {} in {} to the file index: {}", event.kind(), dir, e.toString());
+                }
+            }
+        } finally {
+            if (!key.reset()) {
+                watchKeys.remove(key);
+            }
+        }
+    }
+
+    private void apply(Path dir, WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            reindex(dir);
+            return;
+        }
+
+        Path child = dir.resolve((Path) event.context());
+        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+            if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                reindex(child);
+            } else {
+                addFile(child);
+            }
+        } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            remove(child);
+        }
+    }
+
+    private void reindex(Path dir) {
+        List<String> segments = segments(dir);
+        if (segments == null) return;
+
+        DirNode node = root;
+        for (String segment : segments) {
+            node = node.getOrCreateDir(segment, entryCount);
+        }
+        indexPool.invoke(new IndexTask(dir, node));
+        registerWatches(dir, node);
+    }
+
+    /**
+     * Picks up whatever unwatched directories gained; removals are pruned
+     * when SITE FIND comes across them.
+     */
+    private void rescan() {
+        long startNanos = System.nanoTime();
+        long before = entryCount.sum();
+        indexPool.invoke(new IndexTask(rootDir, root));
+        logger.debug("File index rescanned in {} ms, {} new entries",
+                (System.nanoTime() - startNanos) / 1_000_000, entryCount.sum() - before);
+    }
+
+    /**
+     * Watches {@code dir} and the indexed directories below it, one at a
+     * time, until the watch limit is reached.
+     */
+    private void registerWatches(Path dir, DirNode node) {
+        if (watchService == null || !watchingAll) return;
+
+        Deque<DirNode> nodes = new ArrayDeque<>();
+        Deque<Path> paths = new ArrayDeque<>();
+        nodes.push(node);
+        paths.push(dir);
+        while (!nodes.isEmpty()) {
+            DirNode next = nodes.pop();
+            Path path = paths.pop();
+            if (!watch(path)) return;
+
+            for (DirNode child : next.dirs) {
+                nodes.push(child);
+                paths.push(path.resolve(child.name));
+            }
+        }
+    }
+
+    /**
+     * Returns false once no more directories can be watched.
+     */
+    private boolean watch(Path dir) {
+        if (watchKeys.size() >= config.getFileIndexMaxWatches()) {
+            stopWatchingAll("the limit of " + config.getFileIndexMaxWatches() + " watched directories was reached");
+            return false;
+        }
+        try {
+            watchKeys.add(dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE));
+            return true;
+        } catch (NoSuchFileException e) {
+            return true;
+        } catch (IOException e) {
+            // On Linux: the inotify watch limit (fs.inotify.max_user_watches)
+            stopWatchingAll("watching " + dir + " failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void stopWatchingAll(String reason) {
+        watchingAll = false;
+        logger.warn("File index is not watching every directory, {}; it will rescan every {} s",
+                reason, Math.max(1, config.getFileIndexRescanSeconds()));
+    }
+
+    private void addIfExists(List<Path> matches, Path path) {
+        if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            matches.add(path);
+        } else {
+            remove(path);
+        }
+    }
+
+    private List<String> segments(Path path) {
+        Path normalized = path.toAbsolutePath().normalize();
+        if (!normalized.startsWith(rootDir)) return null;
+
+        Path relative = rootDir.relativize(normalized);
+        List<String> segments = new ArrayList<>(relative.getNameCount());
+        for (Path segment : relative) {
+            String name = segment.toString();
+            if (!name.isEmpty()) segments.add(name);
+        }
+        return segments;
+    }
+
+    /**
+     * The text a glob's matches must start with, or "" for a pattern
+     * without wildcards, which matches anywhere in a name.
+     */
+    static String literalPrefix(String glob) {
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                return glob.substring(0, i);
+            }
+        }
+        return "";
+    }
+
+    static Pattern compile(String glob) {
+        boolean wildcard = glob.indexOf('*') >= 0 || glob.indexOf('?') >= 0;
+        if (!wildcard) {
+            return Pattern.compile(".*" + Pattern.quote(glob) + ".*", Pattern.DOTALL);
+        }
+
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private final class IndexTask extends RecursiveAction {
+        private final Path dir;
+        private final DirNode node;
+
+        IndexTask(Path dir, DirNode node) {
+            this.dir = dir;
+            this.node = node;
+        }
+
+        @Override
+        protected void compute() {
+            List<String> files = new ArrayList<>();
+            List<IndexTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    String name = entry.getFileName().toString();
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        subtasks.add(new IndexTask(entry, node.getOrCreateDir(name, entryCount)));
+                    } else {
+                        files.add(name);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Also a DirectoryIteratorException when the directory goes away mid-scan
+                logger.warn("Failed to index directory {}: {}", dir, e.toString());
+                return;
+            }
+
+            node.addFiles(files, entryCount);
+            invokeAll(subtasks);
+        }
+    }
+
+    static final class DirNode {
+        private final String name;
+        private final NameSet files = new NameSet();
+        private volatile DirNode[] dirs = NO_DIRS;
+
+        DirNode(String name) {
+            this.name = name;
+        }
+
+        DirNode findDir(String childName) {
+            DirNode[] current = dirs;
+            int index = searchDirs(current, childName);
+            return index >= 0 ? current[index] : null;
+        }
+
+        synchronized DirNode getOrCreateDir(String childName, LongAdder counter) {
+            int index = searchDirs(dirs, childName);
+            if (index >= 0) return dirs[index];
+
+            DirNode child = new DirNode(childName);
+            int insertAt = -index - 1;
+            DirNode[] updated = new DirNode[dirs.length + 1];
+            System.arraycopy(dirs, 0, updated, 0, insertAt);
+            updated[insertAt] = child;
+            System.arraycopy(dirs, insertAt, updated, insertAt + 1, dirs.length - insertAt);
+            dirs = updated;
+            counter.increment();
+            return child;
+        }
+
+        void addFile(String fileName, LongAdder counter) {
+            if (files.add(fileName)) {
+                counter.increment();
+            }
+        }
+
+        void addFiles(List<String> fileNames, LongAdder counter) {
+            if (fileNames.isEmpty()) return;
+
+            String[] added = fileNames.toArray(NO_FILES);
+            Arrays.sort(added);
+            counter.add(files.addAll(added));
+        }
+
+        synchronized void remove(String childName, LongAdder counter) {
+            if (files.remove(childName)) {
+                counter.decrement();
+                return;
+            }
+
+            int index = searchDirs(dirs, childName);
+            if (index >= 0) {
+                DirNode removed = dirs[index];
+                DirNode[] updated = new DirNode[dirs.length - 1];
+                System.arraycopy(dirs, 0, updated, 0, index);
+                System.arraycopy(dirs, index + 1, updated, index, dirs.length - index - 1);
+                dirs = updated;
+                counter.add(-removed.countEntries());
+            }
+        }
+
+        long countEntries() {
+            long count = 1 + files.size();
+            for (DirNode child : dirs) {
+                count += child.countEntries();
+            }
+            return count;
+        }
+
+        private static int searchDirs(DirNode[] array, String childName) {
+            int low = 0;
+            int high = array.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = array[mid].name.compareTo(childName);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    /**
+     * Sorted set of names kept as a list of sorted chunks of at most
+     * {@link #CHUNK_SIZE} entries. A write copies the one chunk it touches,
+     * and the array of chunk references only when a chunk splits, merges or
+     * empties, so inserting into a directory of n names costs
+     * O(log n + CHUNK_SIZE) plus an amortized O(n / CHUNK_SIZE^2) instead of
+     * an n-sized copy. Readers walk {@link #chunks()} without locking and see
+     * each chunk either before or after a concurrent write.
+     */
+    static final class NameSet {
+        static final int CHUNK_SIZE = 512;
+
+        private volatile Chunk[] chunks = NO_CHUNKS;
+        private volatile int size = 0;
+
+        Chunk[] chunks() {
+            return chunks;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Passes the names that start with {@code prefix} to {@code visitor}
+         * in order, until it returns false. The first one is found by binary
+         * search; returns false if the visitor stopped early.
+         */
+        boolean forEachWithPrefix(String prefix, Predicate<String> visitor) {
+            Chunk[] current = chunks;
+            if (current.length == 0) return true;
+
+            int first = chunkFor(current, prefix);
+            for (int c = first; c < current.length; c++) {
+                String[] names = current[c].names;
+                int i = 0;
+                if (c == first) {
+                    int found = Arrays.binarySearch(names, prefix);
+                    i = found >= 0 ? found : -found - 1;
+                }
+                for (; i < names.length; i++) {
+                    if (!names[i].startsWith(prefix)) return true;
+                    if (!visitor.test(names[i])) return false;
+                }
+            }
+            return true;
+        }
+
+        boolean contains(String name) {
+            Chunk[] current = chunks;
+            return current.length > 0
+                    && Arrays.binarySearch(current[chunkFor(current, name)].names, name) >= 0;
+        }
+
+        synchronized boolean add(String name) {
+            Chunk[] current = chunks;
+            if (current.length == 0) {
+                chunks = new Chunk[] {new Chunk(new String[] {name})};
+                size = 1;
+                return true;
+            }
+
+            int c = chunkFor(current, name);
+            String[] names = current[c].names;
+            int index = Arrays.binarySearch(names, name);
+            if (index >= 0) return false;
+
+            int insertAt = -index - 1;
+            String[] updated = new String[names.length + 1];
+            System.arraycopy(names, 0, updated, 0, insertAt);
+            updated[insertAt] = name;
+            System.arraycopy(names, insertAt, updated, insertAt + 1, names.length - insertAt);
+
+            if (updated.length <= CHUNK_SIZE) {
+                current[c].names = updated;
+            } else {
+                int half = updated.length / 2;
+                Chunk[] split = new Chunk[current.length + 1];
+                System.arraycopy(current, 0, split, 0, c);
+                split[c] = new Chunk(Arrays.copyOfRange(updated, 0, half));
+                split[c + 1] = new Chunk(Arrays.copyOfRange(updated, half, updated.length));
+                System.arraycopy(current, c + 1, split, c + 2, current.length - c - 1);
+                chunks = split;
+            }
+            size++;
+            return true;
+        }
+
+        /**
+         * Merges a sorted batch, as produced by a directory scan, and returns
+         * the number of names that were not present yet.
+         */
+        synchronized int addAll(String[] sorted) {
+            Chunk[] current = chunks;
+            String[] merged = new String[size + sorted.length];
+            int k = 0, j = 0;
+            for (Chunk chunk : current) {
+                for (String name : chunk.names) {
+                    while (j < sorted.length && sorted[j].compareTo(name) < 0) {
+                        if (k == 0 || !merged[k - 1].equals(sorted[j])) merged[k++] = sorted[j];
+                        j++;
+                    }
+                    if (j < sorted.length && sorted[j].equals(name)) j++;
+                    merged[k++] = name;
+                }
+            }
+            for (; j < sorted.length; j++) {
+                if (k == 0 || !merged[k - 1].equals(sorted[j])) merged[k++] = sorted[j];
+            }
+
+            int added = k - size;
+            if (added == 0) return 0;
+
+            int per = CHUNK_SIZE / 2;
+            Chunk[] rebuilt = new Chunk[(k + per - 1) / per];
+            for (int c = 0; c < rebuilt.length; c++) {
+                rebuilt[c] = new Chunk(Arrays.copyOfRange(merged, c * per, Math.min(k, (c + 1) * per)));
+            }
+            chunks = rebuilt;
+            size = k;
+            return added;
+        }
+
+        synchronized boolean remove(String name) {
+            Chunk[] current = chunks;
+            if (current.length == 0) return false;
+
+            int c = chunkFor(current, name);
+            String[] names = current[c].names;
+            int index = Arrays.binarySearch(names, name);
+            if (index < 0) return false;
+
+            String[] updated = new String[names.length - 1];
+            System.arraycopy(names, 0, updated, 0, index);
+            System.arraycopy(names, index + 1, updated, index, names.length - index - 1);
+
+            if (updated.length == 0) {
+                Chunk[] shrunk = new Chunk[current.length - 1];
+                System.arraycopy(current, 0, shrunk, 0, c);
+                System.arraycopy(current, c + 1, shrunk, c, current.length - c - 1);
+                chunks = shrunk;
+            } else if (updated.length < CHUNK_SIZE / 4 && current.length > 1) {
+                // Fold a sparse chunk into a neighbour so mass deletes do not
+                // leave the reference array full of tiny chunks
+                int left = c + 1 < current.length ? c : c - 1;
+                String[] first = left == c ? updated : current[left].names;
+                String[] second = left == c ? current[c + 1].names : updated;
+                if (first.length + second.length <= CHUNK_SIZE) {
+                    String[] joined = Arrays.copyOf(first, first.length + second.length);
+                    System.arraycopy(second, 0, joined, first.length, second.length);
+                    Chunk[] shrunk = new Chunk[current.length - 1];
+                    System.arraycopy(current, 0, shrunk, 0, left);
+                    shrunk[left] = new Chunk(joined);
+                    System.arraycopy(current, left + 2, shrunk, left + 1, current.length - left - 2);
+                    chunks = shrunk;
+                } else {
+                    current[c].names = updated;
+                }
+            } else {
+                current[c].names = updated;
+            }
+            size--;
+            return true;
+        }
+
+        /** Index of the last chunk whose first name is not after {@code name}. */
+        private static int chunkFor(Chunk[] chunks, String name) {
+            int low = 1;
+            int high = chunks.length - 1;
+            int result = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (chunks[mid].names[0].compareTo(name) <= 0) {
+                    result = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return result;
+        }
+
+        static final class Chunk {
+            volatile String[] names;
+
+            Chunk(String[] names) {
+                this.names = names;
+            }
+        }
+    }
+}
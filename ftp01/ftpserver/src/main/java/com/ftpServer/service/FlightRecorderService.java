@@ -0,0 +1,90 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs an optional always-on flight recording: the JDK default profile plus
+ * the FTP events from {@code jfr/ftp-server.jfc}, kept on disk for
+ * {@code jfr-max-age-minutes} and dumped when the server stops.
+ */
+@Service
+public class FlightRecorderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderService.class);
+
+    static final String PROFILE = "jfr/ftp-server.jfc";
+
+    private final FtpServerConfig config;
+    private Recording recording;
+
+    public FlightRecorderService(FtpServerConfig config) {
+        this.config = config;
+    }
+
+    public synchronized void start() {
+        if (!config.isJfrRecording() || recording != null) return;
+
+        try {
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            settings.putAll(loadProfile().getSettings());
+
+            Path destination = Paths.get(config.getJfrDumpFile()).toAbsolutePath();
+            Recording recording = new Recording(settings);
+            recording.setName("ftp-server");
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMinutes(config.getJfrMaxAgeMinutes()));
+            recording.setMaxSize(config.getJfrMaxSizeMegabytes() * 1024 * 1024);
+            recording.setDestination(destination);
+            recording.setDumpOnExit(true);
+            recording.start();
+            this.recording = recording;
+
+            logger.info("Flight recording started, dumps to {}", destination);
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            logger.warn("Could not start flight recording", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (recording == null) return;
+
+        // stop() writes the recording to its destination
+        try {
+            recording.stop();
+        } catch (IllegalStateException e) {
+            logger.debug("Flight recording already stopped", e);
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private static Configuration loadProfile() throws IOException, ParseException {
+        InputStream in = FlightRecorderService.class.getClassLoader().getResourceAsStream(PROFILE);
+        if (in == null) {
+            throw new IOException("Missing " + PROFILE + " on the classpath");
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        }
+    }
+}
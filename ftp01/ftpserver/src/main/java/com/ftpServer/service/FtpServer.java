@@ -3,18 +3,26 @@ package com.ftpServer.service;
 
 import com.ftpServer.service.FtpSessionHandler;
 import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.jfr.SessionQueueEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.StandardSocketOptions;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -24,14 +32,40 @@ public class FtpServer {
 
     private final FtpServerConfig config;
     private final UserService userService;
+    private final FileIndexService fileIndexService;
+    private final RecursiveOperationService recursiveOperationService;
+    private final QuotaService quotaService;
+    private final PathLockManager pathLockManager;
+    private final BufferPool bufferPool;
+    private final SessionTimeoutService sessionTimeoutService;
+    private final AsciiSizeCache asciiSizeCache;
+    private final FlightRecorderService flightRecorderService;
+    private final UploadEventJournal uploadEventJournal;
+    private final TransferLogService transferLogService;
     private final ExecutorService threadPool;
 
-    private ServerSocket serverSocket;
+    private final List<ServerSocket> serverSockets = new CopyOnWriteArrayList<>();
+    private volatile int localPort = -1;
     private volatile boolean running = false;
 
-    public FtpServer(FtpServerConfig config, UserService userService) {
+    public FtpServer(FtpServerConfig config, UserService userService, FileIndexService fileIndexService,
+                     RecursiveOperationService recursiveOperationService, QuotaService quotaService,
+                     PathLockManager pathLockManager, BufferPool bufferPool,
+                     SessionTimeoutService sessionTimeoutService, AsciiSizeCache asciiSizeCache,
+                     FlightRecorderService flightRecorderService, UploadEventJournal uploadEventJournal,
+                     TransferLogService transferLogService) {
         this.config = config;
         this.userService = userService;
+        this.fileIndexService = fileIndexService;
+        this.recursiveOperationService = recursiveOperationService;
+        this.quotaService = quotaService;
+        this.pathLockManager = pathLockManager;
+        this.bufferPool = bufferPool;
+        this.sessionTimeoutService = sessionTimeoutService;
+        this.asciiSizeCache = asciiSizeCache;
+        this.flightRecorderService = flightRecorderService;
+        this.uploadEventJournal = uploadEventJournal;
+        this.transferLogService = transferLogService;
         this.threadPool = Executors.newFixedThreadPool(config.getMaxThreads());
     }
 
@@ -40,30 +74,141 @@ public class FtpServer {
             // Create root directory if it doesn't exist
             Files.createDirectories(Paths.get(config.getRootDirectory()));
 
-            // Start server socket
-            serverSocket = new ServerSocket(config.getPort());
+            flightRecorderService.start();
+
+            // Build the filename index in the background
+            fileIndexService.start();
+            quotaService.start();
+            uploadEventJournal.start();
+            transferLogService.start();
+
+            // Start server sockets: with SO_REUSEPORT every acceptor gets its own
+            // socket and the kernel spreads connections. Without it there is one
+            // socket per address, and accept() on a socket is serialized by the
+            // JDK, so more than one acceptor thread on it adds no throughput
+            int acceptors = Math.max(1, config.getAcceptorThreads());
+            boolean reusePort = config.isReusePort() && supportsReusePort();
+            if (config.isReusePort() && !reusePort) {
+                logger.warn("SO_REUSEPORT is not supported on this platform");
+            }
+            if (!reusePort && acceptors > 1) {
+                logger.warn("acceptor-threads={} has no effect without SO_REUSEPORT, using one acceptor per address",
+                        acceptors);
+                acceptors = 1;
+            }
+
             running = true;
+            List<Thread> acceptorThreads = new ArrayList<>();
+            for (InetAddress address : bindAddresses()) {
+                ServerSocket shared = reusePort ? null : bind(address, false);
+                for (int i = 0; i < acceptors; i++) {
+                    ServerSocket socket = reusePort ? bind(address, true) : shared;
+                    Thread acceptor = new Thread(() -> acceptLoop(socket),
+                            "ftp-acceptor-" + acceptorThreads.size());
+                    acceptorThreads.add(acceptor);
+                }
+            }
 
             logger.info("===========================================");
             logger.info("FTP Server started successfully");
-            logger.info("Port: {}", config.getPort());
+            logger.info("Port: {}", localPort);
+            logger.info("Bind Addresses: {}", config.getBindAddresses().isEmpty() ? "*" : config.getBindAddresses());
+            logger.info("Acceptors: {} (SO_REUSEPORT {})", acceptorThreads.size(), reusePort ? "on" : "off");
             logger.info("Root Directory: {}", config.getRootDirectory());
             logger.info("Max Threads: {}", config.getMaxThreads());
             logger.info("===========================================");
 
-            // Accept connections in a loop
-            while (running) {
-                try {
-                    Socket clientSocket = serverSocket.accept();
-                    threadPool.submit(new FtpSessionHandler(clientSocket, userService, config));
-                } catch (IOException e) {
-                    if (running) {
-                        logger.error("Error accepting connection", e);
-                    }
+            acceptorThreads.forEach(Thread::start);
+        } catch (IOException e) {
+            logger.error("Failed to start FTP server", e);
+            running = false;
+            closeServerSockets();
+        }
+    }
+
+    /**
+     * The port the server is listening on, or -1 before it has started.
+     * Useful when {@code ftp.server.port} is 0.
+     */
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    private void acceptLoop(ServerSocket serverSocket) {
+        while (running) {
+            try {
+                Socket clientSocket = serverSocket.accept();
+                FtpSessionHandler handler = new FtpSessionHandler(clientSocket, userService, config,
+                        fileIndexService, recursiveOperationService, quotaService, pathLockManager,
+                        bufferPool, sessionTimeoutService, asciiSizeCache, uploadEventJournal,
+                        transferLogService);
+
+                // Measures how long the session waits for a free worker thread
+                SessionQueueEvent queued = new SessionQueueEvent();
+                if (queued.isEnabled()) {
+                    queued.remoteAddress = String.valueOf(clientSocket.getRemoteSocketAddress());
+                    queued.queueLength = threadPool instanceof ThreadPoolExecutor executor
+                            ? executor.getQueue().size() : -1;
+                }
+                queued.begin();
+                threadPool.submit(() -> {
+                    queued.commit();
+                    handler.run();
+                });
+            } catch (IOException e) {
+                if (running) {
+                    logger.error("Error accepting connection", e);
                 }
             }
+        }
+    }
+
+    private ServerSocket bind(InetAddress address, boolean reusePort) throws IOException {
+        ServerSocket socket = new ServerSocket();
+        try {
+            if (reusePort) {
+                socket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            // An ephemeral port is resolved by the first bind and reused for the rest
+            int port = localPort > 0 ? localPort : config.getPort();
+            socket.bind(new InetSocketAddress(address, port), config.getAcceptBacklog());
         } catch (IOException e) {
-            logger.error("Failed to start FTP server", e);
+            socket.close();
+            throw e;
+        }
+        localPort = socket.getLocalPort();
+        serverSockets.add(socket);
+        return socket;
+    }
+
+    private List<InetAddress> bindAddresses() throws IOException {
+        List<InetAddress> addresses = new ArrayList<>();
+        for (String address : config.getBindAddresses()) {
+            addresses.add(InetAddress.getByName(address.trim()));
+        }
+        if (addresses.isEmpty()) {
+            addresses.add(null); // wildcard
+        }
+        return addresses;
+    }
+
+    private boolean supportsReusePort() {
+        try (ServerSocket probe = new ServerSocket()) {
+            return probe.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void closeServerSockets() {
+        for (ServerSocket serverSocket : serverSockets) {
+            try {
+                if (!serverSocket.isClosed()) {
+                    serverSocket.close();
+                }
+            } catch (IOException e) {
+                logger.error("Error closing server socket", e);
+            }
         }
     }
 
@@ -73,9 +218,7 @@ public class FtpServer {
         running = false;
 
         try {
-            if (serverSocket != null && !serverSocket.isClosed()) {
-                serverSocket.close();
-            }
+            closeServerSockets();
 
             threadPool.shutdown();
             if (!threadPool.awaitTermination(30, TimeUnit.SECONDS)) {
@@ -83,7 +226,7 @@ public class FtpServer {
             }
 
             logger.info("FTP server stopped");
-        } catch (IOException | InterruptedException e) {
+        } catch (InterruptedException e) {
             logger.error("Error stopping FTP server", e);
             threadPool.shutdownNow();
         }
@@ -1,28 +1,57 @@
 package com.ftpServer.service;
 
 import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.jfr.FtpCommandEvent;
 import com.ftpServer.model.FtpUser;
+import com.ftpServer.service.HashedTimerWheel.Timeout;
+import com.ftpServer.service.PathLockManager.PathLock;
+import com.ftpServer.service.RecursiveOperationService.DirectoryQueue;
+import com.ftpServer.service.RecursiveOperationService.Listing;
+import com.ftpServer.service.RecursiveOperationService.RecursiveOperation;
+import com.ftpServer.service.RecursiveOperationService.TreeStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.net.InetAddress;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class FtpSessionHandler implements Runnable {
 
     private static final Logger logger = LoggerFactory.getLogger(FtpSessionHandler.class);
 
+    // Directories a recursive listing may read ahead of the client
+    private static final int LISTING_QUEUE_CAPACITY = 64;
+    private static final long CONTROL_POLL_MILLIS = 100;
+
     private final Socket controlSocket;
     private final UserService userService;
     private final FtpServerConfig config;
+    private final FileIndexService fileIndexService;
+    private final RecursiveOperationService recursiveOperationService;
+    private final QuotaService quotaService;
+    private final PathLockManager pathLockManager;
+    private final BufferPool bufferPool;
+    private final BufferPool.Account bufferAccount;
+    private final SessionTimeoutService sessionTimeoutService;
+    private final AsciiSizeCache asciiSizeCache;
+    private final UploadEventJournal uploadEventJournal;
+    private final TransferLogService transferLogService;
 
     private BufferedReader reader;
     private PrintWriter writer;
@@ -30,17 +59,44 @@ public class FtpSessionHandler implements Runnable {
     private String username;
     private FtpUser authenticatedUser;
     private boolean isAuthenticated = false;
+    private boolean closed = false;
     private final Path rootDir;
+    private Path homeDir;
     private Path currentDir;
 
     private DataConnectionManager dataConnectionManager;
     private String transferType = "A"; // A=ASCII, I=Binary
+    private volatile RecursiveOperation<?> activeOperation;
+
+    // Idle tracking for the control connection, checked by the timer wheel
+    private volatile long lastActivityNanos = System.nanoTime();
+    private volatile boolean commandInProgress = false;
+    private volatile boolean reaped = false;
+    private volatile long replyWriteStartedNanos = 0; // 0 while no reply is being written
+    private volatile Timeout idleTimeout;
+    private volatile int lastReplyCode;
 
     // Constructor
-    public FtpSessionHandler(Socket controlSocket, UserService userService, FtpServerConfig config) {
+    public FtpSessionHandler(Socket controlSocket, UserService userService, FtpServerConfig config,
+                             FileIndexService fileIndexService,
+                             RecursiveOperationService recursiveOperationService,
+                             QuotaService quotaService, PathLockManager pathLockManager,
+                             BufferPool bufferPool, SessionTimeoutService sessionTimeoutService,
+                             AsciiSizeCache asciiSizeCache, UploadEventJournal uploadEventJournal,
+                             TransferLogService transferLogService) {
         this.controlSocket = controlSocket;
         this.userService = userService;
         this.config = config;
+        this.fileIndexService = fileIndexService;
+        this.recursiveOperationService = recursiveOperationService;
+        this.quotaService = quotaService;
+        this.pathLockManager = pathLockManager;
+        this.bufferPool = bufferPool;
+        this.bufferAccount = bufferPool.newAccount();
+        this.sessionTimeoutService = sessionTimeoutService;
+        this.asciiSizeCache = asciiSizeCache;
+        this.uploadEventJournal = uploadEventJournal;
+        this.transferLogService = transferLogService;
         this.rootDir = Paths.get(config.getRootDirectory()).toAbsolutePath();
         this.currentDir = rootDir;
     }
@@ -53,19 +109,36 @@ public class FtpSessionHandler implements Runnable {
 
             logger.info("New FTP connection from: {}", controlSocket.getRemoteSocketAddress());
             sendReply(220, "FTP Server Ready");
+            scheduleIdleCheck(sessionTimeoutService.getIdleTimeoutNanos());
 
             String line;
             while ((line = reader.readLine()) != null) {
                 line = line.trim();
                 if (line.isEmpty()) continue;
 
-                logger.info("Command received: {}", line);
-                handleCommand(line);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Command received: {}", line.regionMatches(true, 0, "PASS ", 0, 5) ? "PASS ****" : line);
+                }
+                lastActivityNanos = System.nanoTime();
+                commandInProgress = true;
+                FtpCommandEvent event = new FtpCommandEvent();
+                event.begin();
+                try {
+                    handleCommand(line);
+                } finally {
+                    commandInProgress = false;
+                    lastActivityNanos = System.nanoTime();
+                    commitCommand(event, line);
+                }
 
                 if (controlSocket.isClosed()) break;
             }
         } catch (IOException e) {
-            logger.error("Error in FTP session", e);
+            if (reaped) {
+                logger.debug("Idle session closed", e);
+            } else {
+                logger.error("Error in FTP session", e);
+            }
         } finally {
             cleanup();
         }
@@ -76,6 +149,13 @@ public class FtpSessionHandler implements Runnable {
         String command = parts[0].toUpperCase(Locale.ROOT);
         String argument = parts.length > 1 ? parts[1] : "";
 
+        // Only ABOR, NOOP and QUIT may interrupt a running recursive operation
+        if (activeOperation != null
+                && !command.equals("ABOR") && !command.equals("NOOP") && !command.equals("QUIT")) {
+            sendReply(450, "Recursive operation in progress, send ABOR to cancel");
+            return;
+        }
+
         switch (command) {
             case "USER":
                 handleUser(argument);
@@ -116,6 +196,9 @@ public class FtpSessionHandler implements Runnable {
             case "STOR":
                 handleStor(argument);
                 break;
+            case "SIZE":
+                handleSize(argument);
+                break;
             case "DELE":
                 handleDele(argument);
                 break;
@@ -134,6 +217,12 @@ public class FtpSessionHandler implements Runnable {
             case "EPSV":
                 handleEpsv();
                 break;
+            case "SITE":
+                handleSite(argument);
+                break;
+            case "ABOR":
+                handleAbor();
+                break;
 
             // ADD THESE TWO CASES HERE:
             case "EPRT":
@@ -150,15 +239,16 @@ public class FtpSessionHandler implements Runnable {
         if (!checkAuthentication()) return;
 
         // Create data server socket on random port
-        ServerSocket dataServerSocket = new ServerSocket(0);
-        int port = dataServerSocket.getLocalPort();
+        ServerSocketChannel dataServerChannel = ServerSocketChannel.open().bind(new InetSocketAddress(0));
+        int port = dataServerChannel.socket().getLocalPort();
 
         // Create data connection manager
-        dataConnectionManager = new DataConnectionManager(dataServerSocket);
+        dataConnectionManager = new DataConnectionManager(dataServerChannel, bufferPool, bufferAccount,
+                config.getTransferBufferSize(), sessionTimeoutService);
 
         // EPSV response format: 229 Entering Extended Passive Mode (|||port|)
         sendReply(229, "Entering Extended Passive Mode (|||" + port + "|)");
-        logger.info("Extended passive mode enabled on port: {}", port);
+        logger.debug("Extended passive mode enabled on port: {}", port);
     }
 
 
@@ -187,6 +277,7 @@ public class FtpSessionHandler implements Runnable {
             Path userHome = rootDir.resolve(authenticatedUser.getHomeDirectory().substring(1));
             try {
                 Files.createDirectories(userHome);
+                homeDir = userHome;
                 currentDir = userHome;
             } catch (IOException e) {
                 logger.error("Failed to create user home directory", e);
@@ -202,20 +293,16 @@ public class FtpSessionHandler implements Runnable {
 
     private void handleFeat() {
         sendReply(211, "Features:");
-        writer.println(" PASV");
-        writer.println(" SIZE");
-        writer.println(" MDTM");
+        writer.print(" PASV\r\n");
+        writer.print(" SIZE\r\n");
+        writer.print(" MDTM\r\n");
         sendReply(211, "End");
     }
 
     private void handlePwd() {
         if (!checkAuthentication()) return;
 
-        String relativePath = rootDir.relativize(currentDir).toString();
-        String ftpPath = "/" + relativePath.replace(File.separator, "/");
-        if (ftpPath.equals("//")) ftpPath = "/";
-
-        sendReply(257, "\"" + ftpPath + "\" is current directory");
+        sendReply(257, "\"" + toFtpPath(currentDir) + "\" is current directory");
     }
 
     private void handleCwd(String path) throws IOException {
@@ -248,12 +335,16 @@ public class FtpSessionHandler implements Runnable {
         }
     }
 
+    private boolean isAsciiType() {
+        return transferType.equals("A");
+    }
+
     private void handlePasv() throws IOException {
         if (!checkAuthentication()) return;
 
         // Create data server socket on random port
-        ServerSocket dataServerSocket = new ServerSocket(0);
-        int port = dataServerSocket.getLocalPort();
+        ServerSocketChannel dataServerChannel = ServerSocketChannel.open().bind(new InetSocketAddress(0));
+        int port = dataServerChannel.socket().getLocalPort();
 
         // Get server address
         InetAddress addr = controlSocket.getLocalAddress();
@@ -264,19 +355,29 @@ public class FtpSessionHandler implements Runnable {
         int p2 = port % 256;
 
         // Create data connection manager
-        dataConnectionManager = new DataConnectionManager(dataServerSocket);
+        dataConnectionManager = new DataConnectionManager(dataServerChannel, bufferPool, bufferAccount,
+                config.getTransferBufferSize(), sessionTimeoutService);
 
         sendReply(227, "Entering Passive Mode (" + ip + "," + p1 + "," + p2 + ")");
-        logger.info("Passive mode enabled on port: {}", port);
+        logger.debug("Passive mode enabled on port: {}", port);
     }
 
-    private void handleList(String path) throws IOException {
+    private void handleList(String argument) throws IOException {
         if (!checkAuthentication()) return;
         if (dataConnectionManager == null) {
             sendReply(425, "Use PASV first");
             return;
         }
 
+        // Options such as "-la" or "-R" come before the path
+        String path = argument;
+        boolean recursive = false;
+        if (path.startsWith("-")) {
+            String[] parts = path.split(" ", 2);
+            recursive = parts[0].contains("R");
+            path = parts.length > 1 ? parts[1].trim() : "";
+        }
+
         Path listPath = path.isEmpty() ? currentDir : resolvePath(path);
 
         if (!Files.exists(listPath) || !isWithinRoot(listPath)) {
@@ -284,21 +385,34 @@ public class FtpSessionHandler implements Runnable {
             return;
         }
 
+        if (recursive) {
+            handleRecursiveList(listPath);
+            return;
+        }
+
         sendReply(150, "Opening data connection for directory list");
 
+        DataConnectionManager connection = dataConnectionManager;
         try {
-            dataConnectionManager.waitForConnection(30000);
-            StringBuilder listing = new StringBuilder();
-
-            Files.list(listPath).forEach(file -> {
-                try {
-                    listing.append(formatListEntry(file)).append("\r\n");
-                } catch (IOException e) {
-                    logger.error("Error formatting list entry", e);
+            connection.waitForConnection(config.getDataConnectionTimeoutMillis());
+
+            // Entries go straight into the leased buffer as they are read
+            try (Writer out = connection.openListingWriter();
+                 DirectoryStream<Path> entries = Files.newDirectoryStream(listPath)) {
+                for (Path file : entries) {
+                    String entry;
+                    try {
+                        entry = formatListEntry(file);
+                    } catch (IOException e) {
+                        logger.error("Error formatting list entry", e);
+                        continue;
+                    }
+                    out.write(entry);
+                    out.write("\r\n");
                 }
-            });
-
-            dataConnectionManager.sendDirectoryListing(listing.toString());
+            } finally {
+                connection.close();
+            }
             sendReply(226, "Transfer complete");
         } catch (IOException e) {
             logger.error("Error sending directory listing", e);
@@ -306,6 +420,111 @@ public class FtpSessionHandler implements Runnable {
         }
     }
 
+    private void handleRecursiveList(Path listPath) {
+        if (!Files.isDirectory(listPath)) {
+            sendReply(550, "Not a directory");
+            return;
+        }
+
+        sendReply(150, "Opening data connection for recursive directory list");
+
+        DataConnectionManager connection = dataConnectionManager;
+        Writer out;
+        try {
+            connection.waitForConnection(config.getDataConnectionTimeoutMillis());
+            out = connection.openListingWriter();
+        } catch (IOException e) {
+            logger.error("Error opening data connection", e);
+            connection.close();
+            sendReply(426, "Transfer failed");
+            return;
+        }
+
+        // The pool only walks the tree. Each directory is written here, on the
+        // session's thread, as soon as it has been read; a client that reads
+        // slowly holds back its own walk and nobody else's
+        DirectoryQueue queue = new DirectoryQueue(LISTING_QUEUE_CAPACITY);
+        RecursiveOperation<TreeStats> operation = recursiveOperationService.list(listPath, queue);
+        operation.result().whenComplete((stats, error) -> queue.finish());
+        activeOperation = operation;
+
+        Throwable error = null;
+        try {
+            while (!queue.isDone() && !operation.isCancelled()) {
+                Listing listing = queue.poll(CONTROL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (listing != null) {
+                    writeListingBlock(out, listPath, listing);
+                }
+                pollControl();
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = e;
+        } finally {
+            queue.close();
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.debug("Error closing recursive listing", e);
+            }
+            connection.close();
+        }
+
+        if (error == null && !operation.isCancelled()) {
+            try {
+                operation.result().get();
+            } catch (ExecutionException e) {
+                error = e.getCause();
+            } catch (CancellationException | InterruptedException e) {
+                error = e;
+            }
+        }
+        activeOperation = null;
+
+        if (error != null) {
+            operation.cancel();
+            logFailedOperation(error);
+            sendReply(426, "Transfer failed");
+        } else if (operation.isCancelled()) {
+            sendReply(426, "Operation aborted");
+            sendReply(226, "ABOR command successful");
+        } else {
+            sendReply(226, "Transfer complete");
+        }
+    }
+
+    private void writeListingBlock(Writer out, Path listPath, Listing listing) throws IOException {
+        String relativePath = listPath.relativize(listing.getDirectory()).toString().replace(File.separator, "/");
+        out.write(relativePath.isEmpty() ? "." : "./" + relativePath);
+        out.write(":\r\n");
+        for (Path entry : listing.getEntries()) {
+            out.write(formatListEntry(entry));
+            out.write("\r\n");
+        }
+        out.write("\r\n");
+    }
+
+    /**
+     * Reads commands that arrive while this thread is busy with a recursive
+     * listing, so ABOR, NOOP and QUIT are still answered.
+     */
+    private void pollControl() throws IOException {
+        while (!controlSocket.isClosed() && reader.ready()) {
+            String line = reader.readLine();
+            if (line == null) {
+                closeControlSocket();
+                return;
+            }
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            lastActivityNanos = System.nanoTime();
+            handleCommand(line);
+        }
+    }
+
     private void handleNlst(String path) throws IOException {
         if (!checkAuthentication()) return;
         if (dataConnectionManager == null) {
@@ -322,15 +541,19 @@ public class FtpSessionHandler implements Runnable {
 
         sendReply(150, "Opening data connection for name list");
 
+        DataConnectionManager connection = dataConnectionManager;
         try {
-            dataConnectionManager.waitForConnection(30000);
-            StringBuilder listing = new StringBuilder();
+            connection.waitForConnection(config.getDataConnectionTimeoutMillis());
 
-            Files.list(listPath).forEach(file -> {
-                listing.append(file.getFileName().toString()).append("\r\n");
-            });
-
-            dataConnectionManager.sendDirectoryListing(listing.toString());
+            try (Writer out = connection.openListingWriter();
+                 DirectoryStream<Path> entries = Files.newDirectoryStream(listPath)) {
+                for (Path file : entries) {
+                    out.write(file.getFileName().toString());
+                    out.write("\r\n");
+                }
+            } finally {
+                connection.close();
+            }
             sendReply(226, "Transfer complete");
         } catch (IOException e) {
             logger.error("Error sending name listing", e);
@@ -347,25 +570,41 @@ public class FtpSessionHandler implements Runnable {
 
         Path file = resolvePath(filename);
 
-        if (!Files.exists(file) || !isWithinRoot(file)) {
-            sendReply(550, "File not found");
-            return;
-        }
+        PathLock lock = lockPath(file, false);
+        if (lock == null) return;
 
-        if (Files.isDirectory(file)) {
-            sendReply(550, "Is a directory");
-            return;
-        }
+        try (lock) {
+            if (!Files.exists(file) || !isWithinRoot(file)) {
+                sendReply(550, "File not found");
+                return;
+            }
 
-        sendReply(150, "Opening data connection for " + filename);
+            if (Files.isDirectory(file)) {
+                sendReply(550, "Is a directory");
+                return;
+            }
 
-        try {
-            dataConnectionManager.waitForConnection(30000);
-            dataConnectionManager.sendFile(file);
-            sendReply(226, "Transfer complete");
-        } catch (IOException e) {
-            logger.error("Error retrieving file", e);
-            sendReply(426, "Transfer failed");
+            sendReply(150, "Opening data connection for " + filename);
+
+            long started = System.nanoTime();
+            boolean completed = false;
+            try {
+                dataConnectionManager.waitForConnection(config.getDataConnectionTimeoutMillis());
+                dataConnectionManager.sendFile(file, isAsciiType());
+                completed = true;
+                if (isAsciiType()) {
+                    asciiSizeCache.remember(file, dataConnectionManager.getTransferredBytes());
+                }
+                sendReply(226, "Transfer complete");
+            } catch (BufferPoolExhaustedException e) {
+                logger.warn("Refusing transfer: {}", e.getMessage());
+                sendReply(451, "Insufficient server memory, try again later");
+            } catch (IOException e) {
+                logger.error("Error retrieving file", e);
+                sendReply(426, "Transfer failed");
+            } finally {
+                logTransfer(file, started, false, completed);
+            }
         }
     }
 
@@ -384,20 +623,98 @@ public class FtpSessionHandler implements Runnable {
 
         Path file = resolvePath(filename);
 
-        if (!isWithinRoot(file)) {
+        if (!isWithinRoot(file) || !isWithinQuotaHome(file)) {
             sendReply(550, "Access denied");
             return;
         }
 
-        sendReply(150, "Opening data connection for " + filename);
+        PathLock lock = lockPath(file, true);
+        if (lock == null) return;
+
+        try (lock) {
+            boolean existed = Files.isRegularFile(file);
+            long previousSize = existed ? Files.size(file) : 0;
+
+            // Overwriting a file gives its old size back to the uploader
+            QuotaService.Reservation reservation;
+            try {
+                reservation = quotaService.reserveUpload(file, previousSize, !existed);
+            } catch (QuotaExceededException e) {
+                sendReply(552, e.getMessage());
+                return;
+            }
+
+            sendReply(150, "Opening data connection for " + filename);
+
+            // The upload only replaces the file once it has fully arrived
+            Path upload = file.resolveSibling("." + file.getFileName() + ".part");
+            long started = System.nanoTime();
+            boolean completed = false;
+            try (reservation) {
+                dataConnectionManager.waitForConnection(config.getDataConnectionTimeoutMillis());
+                long received = dataConnectionManager.receiveFile(file, upload, reservation, isAsciiType());
+                Files.move(upload, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                reservation.settle(received - previousSize, existed ? 0 : 1);
+                asciiSizeCache.invalidate(file);
+                fileIndexService.addFile(file);
+                uploadEventJournal.publish(authenticatedUser.getUsername(), file, received);
+                completed = true;
+                sendReply(226, "Transfer complete");
+            } catch (QuotaExceededException e) {
+                sendReply(552, "Exceeded storage allocation");
+            } catch (BufferPoolExhaustedException e) {
+                logger.warn("Refusing transfer: {}", e.getMessage());
+                sendReply(451, "Insufficient server memory, try again later");
+            } catch (IOException e) {
+                logger.error("Error storing file", e);
+                sendReply(426, "Transfer failed");
+            } finally {
+                if (!completed) {
+                    discardUpload(upload);
+                }
+                logTransfer(file, started, true, completed);
+            }
+        }
+    }
 
+    private void discardUpload(Path upload) {
         try {
-            dataConnectionManager.waitForConnection(30000);
-            dataConnectionManager.receiveFile(file);
-            sendReply(226, "Transfer complete");
+            Files.deleteIfExists(upload);
         } catch (IOException e) {
-            logger.error("Error storing file", e);
-            sendReply(426, "Transfer failed");
+            logger.warn("Failed to remove partial upload {}: {}", upload, e.toString());
+        }
+    }
+
+    /**
+     * SIZE reports the number of bytes RETR would send in the current TYPE,
+     * so in ASCII mode it counts the CRs added to bare line feeds.
+     */
+    private void handleSize(String filename) throws IOException {
+        if (!checkAuthentication()) return;
+
+        Path file = resolvePath(filename);
+
+        PathLock lock = lockPath(file, false);
+        if (lock == null) return;
+
+        try (lock) {
+            if (!Files.isRegularFile(file) || !isWithinRoot(file)) {
+                sendReply(550, "File not found");
+                return;
+            }
+
+            try {
+                long size = isAsciiType() ? asciiSizeCache.asciiSize(file, bufferAccount) : Files.size(file);
+                if (size < 0) {
+                    // RFC 3659 lets SIZE fail when the size is too costly to compute
+                    sendReply(550, "File too large for SIZE in ASCII mode, use TYPE I");
+                    return;
+                }
+                sendReply(213, String.valueOf(size));
+            } catch (BufferPoolExhaustedException e) {
+                logger.warn("Refusing SIZE: {}", e.getMessage());
+                sendReply(451, "Insufficient server memory, try again later");
+            }
         }
     }
 
@@ -411,18 +728,28 @@ public class FtpSessionHandler implements Runnable {
 
         Path file = resolvePath(filename);
 
-        if (!Files.exists(file) || !isWithinRoot(file)) {
-            sendReply(550, "File not found");
-            return;
-        }
+        PathLock lock = lockPath(file, true);
+        if (lock == null) return;
 
-        if (Files.isDirectory(file)) {
-            sendReply(550, "Is a directory");
-            return;
-        }
+        try (lock) {
+            if (!Files.exists(file) || !isWithinRoot(file)) {
+                sendReply(550, "File not found");
+                return;
+            }
 
-        Files.delete(file);
-        sendReply(250, "File deleted");
+            if (Files.isDirectory(file)) {
+                sendReply(550, "Is a directory");
+                return;
+            }
+
+            long size = Files.size(file);
+            Files.delete(file);
+            quotaService.record(file, -size, -1);
+            fileIndexService.remove(file);
+            asciiSizeCache.invalidate(file);
+            logger.info("User {} deleted file {} ({} bytes)", username, toFtpPath(file), size);
+            sendReply(250, "File deleted");
+        }
     }
 
     private void handleMkd(String dirname) throws IOException {
@@ -435,12 +762,20 @@ public class FtpSessionHandler implements Runnable {
 
         Path dir = resolvePath(dirname);
 
-        if (!isWithinRoot(dir)) {
+        if (!isWithinRoot(dir) || !isWithinQuotaHome(dir)) {
             sendReply(550, "Access denied");
             return;
         }
 
-        Files.createDirectory(dir);
+        try (QuotaService.Reservation reservation = quotaService.reserveEntry(dir)) {
+            Files.createDirectory(dir);
+            reservation.settle(0, 1);
+        } catch (QuotaExceededException e) {
+            sendReply(552, e.getMessage());
+            return;
+        }
+        fileIndexService.addDirectory(dir);
+        logger.info("User {} created directory {}", username, toFtpPath(dir));
         sendReply(257, "\"" + dirname + "\" directory created");
     }
 
@@ -454,6 +789,87 @@ public class FtpSessionHandler implements Runnable {
 
         Path dir = resolvePath(dirname);
 
+        PathLock lock = lockPath(dir, true);
+        if (lock == null) return;
+
+        try (lock) {
+            if (!Files.exists(dir) || !isWithinRoot(dir)) {
+                sendReply(550, "Directory not found");
+                return;
+            }
+
+            if (!Files.isDirectory(dir)) {
+                sendReply(550, "Not a directory");
+                return;
+            }
+
+            Files.delete(dir);
+            quotaService.record(dir, 0, -1);
+            fileIndexService.remove(dir);
+            logger.info("User {} removed directory {}", username, toFtpPath(dir));
+            sendReply(250, "Directory removed");
+        }
+    }
+
+    private void handleSite(String argument) throws IOException {
+        if (!checkAuthentication()) return;
+
+        String[] parts = argument.trim().split(" ", 2);
+        String subCommand = parts[0].toUpperCase(Locale.ROOT);
+        String subArgument = parts.length > 1 ? parts[1].trim() : "";
+
+        switch (subCommand) {
+            case "FIND":
+                handleSiteFind(subArgument);
+                break;
+            case "RMDIR":
+                handleSiteRmdir(subArgument);
+                break;
+            case "DU":
+                handleSiteDu(subArgument);
+                break;
+            case "QUOTA":
+                handleSiteQuota();
+                break;
+            default:
+                sendReply(504, "SITE command not implemented: " + subCommand);
+                break;
+        }
+    }
+
+    private void handleSiteFind(String pattern) {
+        if (pattern.isEmpty()) {
+            sendReply(501, "Syntax: SITE FIND <pattern>");
+            return;
+        }
+
+        if (!fileIndexService.isReady()) {
+            sendReply(450, "File index is still building, try again later");
+            return;
+        }
+
+        List<Path> matches = fileIndexService.find(homeDir, pattern, config.getFindMaxResults());
+
+        writer.print("200-" + matches.size() + " match(es) for " + pattern + "\r\n");
+        for (Path match : matches) {
+            writer.print(" " + toFtpPath(match) + "\r\n");
+        }
+        sendReply(200, "End of FIND");
+    }
+
+    private void handleSiteRmdir(String argument) throws IOException {
+        if (!argument.toUpperCase(Locale.ROOT).startsWith("-R ")) {
+            handleRmd(argument);
+            return;
+        }
+
+        if (!authenticatedUser.getCanWrite()) {
+            sendReply(550, "Permission denied");
+            return;
+        }
+
+        Path dir = resolvePath(argument.substring(3).trim());
+
         if (!Files.exists(dir) || !isWithinRoot(dir)) {
             sendReply(550, "Directory not found");
             return;
@@ -464,8 +880,104 @@ public class FtpSessionHandler implements Runnable {
             return;
         }
 
-        Files.delete(dir);
-        sendReply(250, "Directory removed");
+        if (dir.equals(rootDir) || dir.equals(homeDir)) {
+            sendReply(550, "Cannot remove home directory");
+            return;
+        }
+
+        logger.info("User {} started removing directory tree {}", username, toFtpPath(dir));
+        RecursiveOperation<TreeStats> operation = recursiveOperationService.delete(dir);
+        runInBackground(operation, () -> {
+            // A partial delete is only known from disk, so recount in the background
+            if (operation.isCancelled() || operation.result().isCompletedExceptionally()) {
+                quotaService.reconcile();
+            }
+        }, stats -> {
+            quotaService.record(dir, -stats.getBytes(), -(stats.getFiles() + stats.getDirectories()));
+            fileIndexService.remove(dir);
+            logger.info("User {} removed directory tree {}: {} files, {} directories", username, toFtpPath(dir),
+                    stats.getFiles(), stats.getDirectories());
+            sendReply(250, "Removed " + stats.getFiles() + " files and "
+                    + stats.getDirectories() + " directories");
+        }, 550, "Failed to remove directory");
+    }
+
+    private void handleSiteDu(String path) throws IOException {
+        Path target = path.isEmpty() ? currentDir : resolvePath(path);
+
+        if (!Files.exists(target) || !isWithinRoot(target)) {
+            sendReply(550, "File not found");
+            return;
+        }
+
+        if (!Files.isDirectory(target)) {
+            sendReply(213, Files.size(target) + " bytes in 1 files");
+            return;
+        }
+
+        runInBackground(recursiveOperationService.size(target), () -> { },
+                stats -> sendReply(213, stats.getBytes() + " bytes in " + stats.getFiles() + " files, "
+                        + stats.getDirectories() + " directories"),
+                550, "Failed to compute size");
+    }
+
+    private void handleSiteQuota() {
+        if (!authenticatedUser.hasQuota()) {
+            sendReply(213, "No quota");
+            return;
+        }
+
+        sendReply(213, "Used " + quotaService.usedBytes(authenticatedUser) + " of "
+                + limitText(authenticatedUser.getMaxBytes()) + " bytes, "
+                + quotaService.usedEntries(authenticatedUser) + " of "
+                + limitText(authenticatedUser.getMaxFiles()) + " files");
+    }
+
+    private String limitText(long limit) {
+        return limit > 0 ? String.valueOf(limit) : "unlimited";
+    }
+
+    private void handleAbor() {
+        RecursiveOperation<?> operation = activeOperation;
+        if (operation == null) {
+            sendReply(226, "No transfer to abort");
+            return;
+        }
+
+        // 426 and 226 are sent once the operation has stopped
+        operation.cancel();
+    }
+
+    /**
+     * Runs a recursive operation off the control thread so that ABOR can still
+     * be read. {@code release} always runs before the final reply is sent.
+     */
+    private <T> void runInBackground(RecursiveOperation<T> operation, Runnable release,
+                                     Consumer<T> onSuccess, int failureCode, String failureMessage) {
+        activeOperation = operation;
+        operation.result().whenComplete((result, error) -> {
+            release.run();
+            activeOperation = null;
+
+            if (operation.isCancelled()) {
+                sendReply(426, "Operation aborted");
+                sendReply(226, "ABOR command successful");
+            } else if (error != null) {
+                logFailedOperation(error);
+                sendReply(failureCode, failureMessage);
+            } else {
+                onSuccess.accept(result);
+            }
+        });
+    }
+
+    private void logFailedOperation(Throwable error) {
+        // A client closing the data connection mid-listing lands here too
+        if (error instanceof IOException) {
+            logger.warn("Recursive operation failed: {}", error.toString());
+        } else {
+            logger.error("Recursive operation failed", error);
+        }
     }
 
     private void handleQuit() {
@@ -473,6 +985,70 @@ public class FtpSessionHandler implements Runnable {
         cleanup();
     }
 
+    /**
+     * Locks a path for the current command, replying 450 if it stays busy.
+     */
+    private PathLock lockPath(Path path, boolean exclusive) {
+        PathLock lock = exclusive ? pathLockManager.tryLockWrite(path) : pathLockManager.tryLockRead(path);
+        if (lock == null) {
+            sendReply(450, "Requested file action not taken, file busy");
+        }
+        return lock;
+    }
+
+    private void scheduleIdleCheck(long delayNanos) {
+        if (delayNanos <= 0) return;
+        idleTimeout = sessionTimeoutService.schedule(this::checkIdle, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Runs on the timer wheel, so it never writes to the client itself. A
+     * session that is executing a command or a recursive operation is never
+     * idle, unless a reply has been stuck in the socket for the whole idle
+     * timeout because the client stopped reading; that session is closed
+     * without a goodbye. Otherwise a session is reaped with a 421 once
+     * nothing has arrived for the idle timeout.
+     */
+    private void checkIdle() {
+        if (controlSocket.isClosed()) return;
+
+        long now = System.nanoTime();
+        long idleTimeoutNanos = sessionTimeoutService.getIdleTimeoutNanos();
+        long writeStarted = replyWriteStartedNanos;
+        if (writeStarted != 0 && now - writeStarted >= idleTimeoutNanos) {
+            logger.info("Closing session for user {}: client stopped reading replies", username);
+            reaped = true;
+            sessionTimeoutService.recordReaped(SessionTimeoutService.Reason.IDLE);
+            closeControlSocket();
+            return;
+        }
+
+        if (commandInProgress || activeOperation != null) {
+            scheduleIdleCheck(writeStarted != 0 ? idleTimeoutNanos - (now - writeStarted) : idleTimeoutNanos);
+            return;
+        }
+
+        long idleNanos = now - lastActivityNanos;
+        if (idleNanos < idleTimeoutNanos) {
+            scheduleIdleCheck(idleTimeoutNanos - idleNanos);
+            return;
+        }
+
+        logger.info("Closing idle session for user: {}", username);
+        reaped = true;
+        sessionTimeoutService.reap(SessionTimeoutService.Reason.IDLE,
+                () -> sendReply(421, "Idle timeout, closing control connection"),
+                this::closeControlSocket);
+    }
+
+    private void closeControlSocket() {
+        try {
+            controlSocket.close();
+        } catch (IOException e) {
+            logger.debug("Error closing idle session", e);
+        }
+    }
+
     private boolean checkAuthentication() {
         if (!isAuthenticated) {
             sendReply(530, "Not logged in");
@@ -493,6 +1069,22 @@ public class FtpSessionHandler implements Runnable {
         return path.normalize().startsWith(rootDir);
     }
 
+    /**
+     * A user with a quota may only add entries below their own home
+     * directory, which is where the quota is charged.
+     */
+    private boolean isWithinQuotaHome(Path path) {
+        if (!authenticatedUser.hasQuota()) return true;
+        return homeDir != null && path.startsWith(homeDir) && !path.equals(homeDir);
+    }
+
+    private String toFtpPath(Path path) {
+        String relativePath = rootDir.relativize(path).toString();
+        String ftpPath = "/" + relativePath.replace(File.separator, "/");
+        if (ftpPath.equals("//")) ftpPath = "/";
+        return ftpPath;
+    }
+
     private String formatListEntry(Path file) throws IOException {
         File f = file.toFile();
         StringBuilder sb = new StringBuilder();
@@ -527,14 +1119,52 @@ public class FtpSessionHandler implements Runnable {
         return sb.toString();
     }
 
-    private void sendReply(int code, String message) {
-        String reply = code + " " + message;
-        writer.println(reply);
+    private void commitCommand(FtpCommandEvent event, String line) {
+        event.end();
+        if (event.shouldCommit()) {
+            int space = line.indexOf(' ');
+            event.verb = (space < 0 ? line : line.substring(0, space)).toUpperCase(Locale.ROOT);
+            event.user = username;
+            event.replyCode = lastReplyCode;
+            event.commit();
+        }
+    }
+
+    private void logTransfer(Path file, long startedNanos, boolean incoming, boolean completed) {
+        transferLogService.record(controlSocket.getInetAddress(), System.nanoTime() - startedNanos,
+                dataConnectionManager.getTransferredBytes(), file, isAsciiType(), incoming, username, completed);
+    }
+
+    private synchronized void sendReply(int code, String message) {
+        lastReplyCode = code;
+        replyWriteStartedNanos = System.nanoTime() | 1;
+        writer.print(code);
+        writer.print(' ');
+        // Replies end in CRLF whatever the platform line separator is
+        writer.print(message);
+        writer.print("\r\n");
         writer.flush();
-        logger.debug("Reply sent: {}", reply);
+        replyWriteStartedNanos = 0;
+        if (logger.isDebugEnabled()) {
+            logger.debug("Reply sent: {} {}", code, message);
+        }
     }
 
     private void cleanup() {
+        // QUIT cleans up before the command loop ends and cleans up again
+        if (closed) return;
+        closed = true;
+
+        Timeout timeout = idleTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+
+        RecursiveOperation<?> operation = activeOperation;
+        if (operation != null) {
+            operation.cancel();
+        }
+
         try {
             if (dataConnectionManager != null) {
                 dataConnectionManager.close();
@@ -0,0 +1,185 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Reader/writer locks per path, so RETR, STOR and DELE on the same file
+ * serialize across sessions.
+ *
+ * Each path that is locked gets its own reference-counted lock, created on
+ * first use and dropped when the last holder or waiter lets go, so memory
+ * follows the number of paths in use. The table of those locks is split
+ * into stripes that are only held while looking a lock up, never while it
+ * is held, so unrelated paths never wait on each other even when they hash
+ * to the same stripe. A lock that cannot be taken within the configured
+ * timeout is reported as busy rather than waited on forever.
+ */
+@Service
+public class PathLockManager implements MeterBinder {
+
+    private final Map<Path, Entry>[] stripes;
+    private final int mask;
+    private final long timeoutMillis;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public PathLockManager(FtpServerConfig config) {
+        int count = Integer.highestOneBit(Math.max(1, config.getLockStripes() - 1) << 1);
+        this.stripes = new Map[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new HashMap<>();
+        }
+        this.mask = count - 1;
+        this.timeoutMillis = config.getLockTimeoutMillis();
+    }
+
+    /**
+     * Takes the shared lock for {@code path}, or returns null on timeout.
+     */
+    public PathLock tryLockRead(Path path) {
+        return acquire(path, false);
+    }
+
+    /**
+     * Takes the exclusive lock for {@code path}, or returns null on timeout.
+     */
+    public PathLock tryLockWrite(Path path) {
+        return acquire(path, true);
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getContended() {
+        return contended.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ftp.lock.acquisitions", acquisitions, LongAdder::sum)
+                .description("Path locks acquired")
+                .register(registry);
+        FunctionCounter.builder("ftp.lock.contended", contended, LongAdder::sum)
+                .description("Path lock requests that had to wait")
+                .register(registry);
+        FunctionCounter.builder("ftp.lock.timeouts", timeouts, LongAdder::sum)
+                .description("Path lock requests rejected after the timeout")
+                .register(registry);
+        FunctionCounter.builder("ftp.lock.wait", waitNanos, adder -> adder.sum() / 1e9)
+                .description("Time spent waiting for contended path locks")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    int stripeFor(Path path) {
+        return stripeForKey(path.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Number of paths that currently have a lock, held or waited for.
+     */
+    int activePaths() {
+        int count = 0;
+        for (Map<Path, Entry> stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.size();
+            }
+        }
+        return count;
+    }
+
+    private int stripeForKey(Path key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private PathLock acquire(Path path, boolean exclusive) {
+        Path key = path.toAbsolutePath().normalize();
+        Map<Path, Entry> stripe = stripes[stripeForKey(key)];
+        Entry entry;
+        synchronized (stripe) {
+            entry = stripe.computeIfAbsent(key, k -> new Entry());
+            entry.references++;
+        }
+
+        Lock lock = exclusive ? entry.lock.writeLock() : entry.lock.readLock();
+        if (lock.tryLock()) {
+            acquisitions.increment();
+            return new PathLock(stripe, key, entry, lock);
+        }
+
+        contended.increment();
+        long start = System.nanoTime();
+        try {
+            if (lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                acquisitions.increment();
+                return new PathLock(stripe, key, entry, lock);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+        }
+
+        timeouts.increment();
+        release(stripe, key, entry);
+        return null;
+    }
+
+    private static void release(Map<Path, Entry> stripe, Path key, Entry entry) {
+        synchronized (stripe) {
+            if (--entry.references == 0) {
+                stripe.remove(key);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private int references; // guarded by the stripe
+    }
+
+    /**
+     * A held path lock; closing it releases the lock.
+     */
+    public static final class PathLock implements AutoCloseable {
+        private final Map<Path, Entry> stripe;
+        private final Path key;
+        private final Entry entry;
+        private final Lock lock;
+
+        private PathLock(Map<Path, Entry> stripe, Path key, Entry entry, Lock lock) {
+            this.stripe = stripe;
+            this.key = key;
+            this.entry = entry;
+            this.lock = lock;
+        }
+
+        @Override
+        public void close() {
+            lock.unlock();
+            release(stripe, key, entry);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ftpServer.service;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an upload would take a user past their byte quota.
+ */
+public class QuotaExceededException extends IOException {
+
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,488 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.model.FtpUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user byte and file-count quotas.
+ *
+ * Usage is kept in a ledger per quota-limited home directory and updated by
+ * the session handlers on every STOR, DELE, MKD and RMD, so enforcement never
+ * walks the tree. A change is charged to the home directory that contains
+ * it, whoever makes it; quota homes are not expected to nest. The ledger is
+ * flushed to a small binary file and periodically reconciled against the
+ * disk on the recursive-operation pool. "Files" counts files and directories
+ * below the home directory.
+ */
+@Service
+public class QuotaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuotaService.class);
+
+    private static final int LEDGER_MAGIC = 0x4654514C; // "FTQL"
+    private static final int LEDGER_VERSION = 1;
+
+    private final FtpServerConfig config;
+    private final UserService userService;
+    private final RecursiveOperationService recursiveOperationService;
+    private final Path rootDir;
+    private final Path ledgerFile;
+    private final Map<Path, Usage> ledger = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ftp-quota");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean dirty = false;
+
+    public QuotaService(FtpServerConfig config, UserService userService,
+                        RecursiveOperationService recursiveOperationService) {
+        this.config = config;
+        this.userService = userService;
+        this.recursiveOperationService = recursiveOperationService;
+        this.rootDir = Paths.get(config.getRootDirectory()).toAbsolutePath();
+        this.ledgerFile = Paths.get(config.getQuotaLedgerFile()).toAbsolutePath();
+    }
+
+    /**
+     * Loads the persisted ledger and schedules flushing and reconciliation.
+     */
+    public void start() {
+        load();
+        for (FtpUser user : userService.getUsers()) {
+            if (user.hasQuota()) {
+                usageFor(user);
+            }
+        }
+
+        int flushInterval = Math.max(1, config.getQuotaFlushIntervalSeconds());
+        scheduler.scheduleWithFixedDelay(this::flushIfDirty, flushInterval, flushInterval, TimeUnit.SECONDS);
+
+        int reconcileInterval = Math.max(1, config.getQuotaReconcileIntervalMinutes());
+        scheduler.scheduleWithFixedDelay(this::reconcile, 0, reconcileInterval, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Bytes the user may still store, or {@link Long#MAX_VALUE} without a byte quota.
+     */
+    public long remainingBytes(FtpUser user) {
+        if (user.getMaxBytes() <= 0) return Long.MAX_VALUE;
+        return user.getMaxBytes() - usageFor(user).getBytes();
+    }
+
+    public boolean hasRoomForEntries(FtpUser user, long entries) {
+        if (user.getMaxFiles() <= 0) return true;
+        return usageFor(user).getEntries() + entries <= user.getMaxFiles();
+    }
+
+    /**
+     * Holds room for an upload to {@code file} in the quota of the home
+     * directory containing it. {@code replacedBytes} is the size of the file
+     * it overwrites, which the upload may reuse; a new file also takes an
+     * entry. Bytes are claimed through the returned reservation as they arrive.
+     *
+     * @throws QuotaExceededException if the home has no room left
+     */
+    public Reservation reserveUpload(Path file, long replacedBytes, boolean newFile) throws QuotaExceededException {
+        Usage usage = owner(file);
+        long entries = newFile ? 1 : 0;
+        if (usage != null) {
+            usage.reserve(entries, true, replacedBytes);
+        }
+        return new Reservation(usage, file, replacedBytes, entries);
+    }
+
+    /**
+     * Holds room for one new entry, such as a directory, that takes no bytes.
+     *
+     * @throws QuotaExceededException if the home has no entries left
+     */
+    public Reservation reserveEntry(Path path) throws QuotaExceededException {
+        Usage usage = owner(path);
+        if (usage != null) {
+            usage.reserve(1, false, 0);
+        }
+        return new Reservation(usage, path, 0, 1);
+    }
+
+    public long usedBytes(FtpUser user) {
+        return user.hasQuota() ? usageFor(user).getBytes() : 0;
+    }
+
+    public long usedEntries(FtpUser user) {
+        return user.hasQuota() ? usageFor(user).getEntries() : 0;
+    }
+
+    /**
+     * Records a change below {@code path} against the home directory that
+     * contains it, if that home is tracked.
+     */
+    public void record(Path path, long bytesDelta, long entriesDelta) {
+        if (bytesDelta == 0 && entriesDelta == 0) return;
+
+        Usage usage = owner(path);
+        if (usage != null) {
+            usage.add(path.toAbsolutePath().normalize(), bytesDelta, entriesDelta);
+            dirty = true;
+        }
+    }
+
+    /**
+     * The tracked home directory that contains {@code path}, found by looking
+     * up each of its parents.
+     */
+    private Usage owner(Path path) {
+        Path dir = path.toAbsolutePath().normalize().getParent();
+        for (; dir != null && dir.startsWith(rootDir); dir = dir.getParent()) {
+            Usage usage = ledger.get(dir);
+            if (usage != null) return usage;
+        }
+        return null;
+    }
+
+    /**
+     * Recounts every tracked home directory from disk. Homes are scanned in
+     * parallel. Changes recorded during a scan are carried over only where
+     * the scan cannot have seen them, see {@link Usage}.
+     */
+    public CompletableFuture<Void> reconcile() {
+        List<CompletableFuture<Void>> scans = new ArrayList<>();
+        for (Usage usage : ledger.values()) {
+            if (Files.isDirectory(usage.home)) {
+                scans.add(reconcile(usage));
+            }
+        }
+        return CompletableFuture.allOf(scans.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * A home whose scan is still running is not scanned twice at once; it is
+     * scanned once more after the running scan ends, since that scan may
+     * already have passed whatever prompted the request.
+     */
+    private CompletableFuture<Void> reconcile(Usage usage) {
+        if (!usage.beginReconcile()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return recursiveOperationService.list(usage.home, usage::directoryScanned).result()
+                .handle((stats, error) -> {
+                    if (error != null) {
+                        logger.warn("Quota reconciliation failed for {}: {}", usage.home, error.toString());
+                        return usage.abortReconcile();
+                    }
+                    dirty = true;
+                    return usage.finishReconcile(stats.getBytes(), stats.getFiles() + stats.getDirectories() - 1);
+                })
+                .thenCompose(rescan -> rescan ? reconcile(usage) : CompletableFuture.completedFuture(null));
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        flushIfDirty();
+    }
+
+    private Usage usageFor(FtpUser user) {
+        String home = user.getHomeDirectory();
+        Usage usage = ledger.computeIfAbsent(homePath(home), path -> new Usage(home, path));
+        usage.limit(user.getMaxBytes(), user.getMaxFiles());
+        return usage;
+    }
+
+    private Path homePath(String home) {
+        return rootDir.resolve(home.startsWith("/") ? home.substring(1) : home).normalize();
+    }
+
+    private synchronized void flushIfDirty() {
+        if (!dirty) return;
+        dirty = false;
+
+        Path tempFile = ledgerFile.resolveSibling(ledgerFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(LEDGER_MAGIC);
+            out.writeInt(LEDGER_VERSION);
+            out.writeInt(ledger.size());
+            for (Usage usage : ledger.values()) {
+                out.writeUTF(usage.name);
+                out.writeLong(usage.getBytes());
+                out.writeLong(usage.getEntries());
+            }
+        } catch (IOException e) {
+            dirty = true;
+            logger.error("Failed to write quota ledger", e);
+            return;
+        }
+
+        try {
+            Files.move(tempFile, ledgerFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            logger.error("Failed to replace quota ledger", e);
+        }
+    }
+
+    private void load() {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(ledgerFile)))) {
+            if (in.readInt() != LEDGER_MAGIC || in.readInt() != LEDGER_VERSION) {
+                logger.warn("Ignoring quota ledger {} with unknown format", ledgerFile);
+                return;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String home = in.readUTF();
+                long bytes = in.readLong();
+                long entries = in.readLong();
+                Usage usage = new Usage(home, homePath(home));
+                usage.bytes = bytes;
+                usage.entries = entries;
+                ledger.put(usage.home, usage);
+            }
+            logger.info("Loaded quota ledger for {} home directories", count);
+        } catch (NoSuchFileException e) {
+            logger.info("No quota ledger found, usage will be computed in the background");
+        } catch (IOException e) {
+            logger.warn("Failed to read quota ledger {}, usage will be recomputed", ledgerFile, e);
+        }
+    }
+
+    /**
+     * Room held for one upload or MKD. Bytes past those of the entry being
+     * replaced are claimed as the upload grows, so concurrent uploads into
+     * one home cannot pass its quota between them. {@link #settle} charges
+     * the finished change; {@link #close} hands back whatever is still held.
+     */
+    public final class Reservation implements AutoCloseable {
+        private final Usage usage; // null outside a tracked home
+        private final Path path;
+        private final long replacedBytes;
+        private long heldBytes;
+        private long heldEntries;
+
+        private Reservation(Usage usage, Path path, long replacedBytes, long entries) {
+            this.usage = usage;
+            this.path = path.toAbsolutePath().normalize();
+            this.replacedBytes = replacedBytes;
+            this.heldEntries = entries;
+        }
+
+        /**
+         * Grows the reservation to cover an entry of {@code bytes}; false if
+         * the quota has no room for it.
+         */
+        public boolean cover(long bytes) {
+            if (usage == null) return true;
+            long needed = bytes - replacedBytes - heldBytes;
+            if (needed <= 0) return true;
+            if (!usage.claim(needed)) return false;
+            heldBytes += needed;
+            return true;
+        }
+
+        public void settle(long bytesDelta, long entriesDelta) {
+            if (usage == null) return;
+            usage.settle(path, heldBytes, heldEntries, bytesDelta, entriesDelta);
+            heldBytes = 0;
+            heldEntries = 0;
+            dirty = true;
+        }
+
+        @Override
+        public void close() {
+            if (usage == null || (heldBytes == 0 && heldEntries == 0)) return;
+            usage.settle(path, heldBytes, heldEntries, 0, 0);
+            heldBytes = 0;
+            heldEntries = 0;
+        }
+    }
+
+    /**
+     * Usage of one home directory.
+     *
+     * While a reconciliation scan runs, each change is held against the
+     * directory it was made in. Once the scan has listed that directory, a
+     * change is carried over to the scanned totals only if the listing does
+     * not reflect it: a new entry the listing missed, or a removed entry it
+     * still contained. Changes in directories the scan never listed, such as
+     * ones created after their parent was read, are carried over when the
+     * scan ends. A file that is still being uploaded while the scan reads it
+     * can be off by its partial size until the next pass.
+     */
+    private static final class Usage {
+        private final String name;
+        private final Path home;
+        private long bytes;
+        private long entries;
+        private long maxBytes;
+        private long maxFiles;
+        // Held by uploads and MKDs in progress
+        private long reservedBytes;
+        private long reservedEntries;
+
+        // Present while a reconciliation scan is running
+        private Reconcile reconcile;
+        private boolean rescanRequested;
+
+        Usage(String name, Path home) {
+            this.name = name;
+            this.home = home;
+        }
+
+        synchronized void limit(long maxBytes, long maxFiles) {
+            this.maxBytes = maxBytes;
+            this.maxFiles = maxFiles;
+        }
+
+        /**
+         * An upload also needs room for at least one byte past the file it replaces.
+         */
+        synchronized void reserve(long newEntries, boolean upload, long replacedBytes)
+                throws QuotaExceededException {
+            if (maxFiles > 0 && entries + reservedEntries + newEntries > maxFiles) {
+                throw new QuotaExceededException("File count quota exceeded");
+            }
+            if (upload && maxBytes > 0 && bytes + reservedBytes - replacedBytes >= maxBytes) {
+                throw new QuotaExceededException("Disk quota exceeded");
+            }
+            reservedEntries += newEntries;
+        }
+
+        synchronized boolean claim(long newBytes) {
+            if (maxBytes > 0 && bytes + reservedBytes + newBytes > maxBytes) return false;
+            reservedBytes += newBytes;
+            return true;
+        }
+
+        synchronized void settle(Path path, long heldBytes, long heldEntries, long bytesDelta, long entriesDelta) {
+            reservedBytes -= heldBytes;
+            reservedEntries -= heldEntries;
+            if (bytesDelta != 0 || entriesDelta != 0) {
+                add(path, bytesDelta, entriesDelta);
+            }
+        }
+
+        synchronized long getBytes() {
+            return bytes;
+        }
+
+        synchronized long getEntries() {
+            return entries;
+        }
+
+        synchronized void add(Path path, long bytesDelta, long entriesDelta) {
+            bytes += bytesDelta;
+            entries += entriesDelta;
+            if (reconcile == null) return;
+
+            Path dir = path.getParent();
+            if (reconcile.listed.contains(dir)) {
+                reconcile.carry(bytesDelta, entriesDelta);
+            } else {
+                reconcile.unlisted.computeIfAbsent(dir, key -> new ArrayList<>())
+                        .add(new Change(path, bytesDelta, entriesDelta));
+            }
+        }
+
+        synchronized boolean beginReconcile() {
+            if (reconcile != null) {
+                rescanRequested = true;
+                return false;
+            }
+            reconcile = new Reconcile();
+            return true;
+        }
+
+        synchronized void directoryScanned(Path dir, List<Path> scannedEntries) {
+            if (reconcile == null) return;
+            reconcile.listed.add(dir);
+
+            List<Change> changes = reconcile.unlisted.remove(dir);
+            if (changes == null) return;
+
+            Set<Path> seen = new HashSet<>(scannedEntries);
+            for (Change change : changes) {
+                boolean reflected = change.entries > 0 ? seen.contains(change.path)
+                        : change.entries < 0 ? !seen.contains(change.path)
+                        : true;
+                if (!reflected) {
+                    reconcile.carry(change.bytes, change.entries);
+                }
+            }
+        }
+
+        /**
+         * Returns whether another scan was requested while this one ran.
+         */
+        synchronized boolean finishReconcile(long scannedBytes, long scannedEntries) {
+            for (List<Change> changes : reconcile.unlisted.values()) {
+                for (Change change : changes) {
+                    reconcile.carry(change.bytes, change.entries);
+                }
+            }
+            bytes = scannedBytes + reconcile.carriedBytes;
+            entries = scannedEntries + reconcile.carriedEntries;
+            return abortReconcile();
+        }
+
+        synchronized boolean abortReconcile() {
+            reconcile = null;
+            boolean rescan = rescanRequested;
+            rescanRequested = false;
+            return rescan;
+        }
+    }
+
+    private static final class Reconcile {
+        private final Set<Path> listed = new HashSet<>();
+        private final Map<Path, List<Change>> unlisted = new HashMap<>();
+        private long carriedBytes;
+        private long carriedEntries;
+
+        void carry(long bytesDelta, long entriesDelta) {
+            carriedBytes += bytesDelta;
+            carriedEntries += entriesDelta;
+        }
+    }
+
+    private static final class Change {
+        private final Path path;
+        private final long bytes;
+        private final long entries;
+
+        Change(Path path, long bytes, long entries) {
+            this.path = path;
+            this.bytes = bytes;
+            this.entries = entries;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.service.PathLockManager.PathLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs recursive tree operations (LIST -R, SITE RMDIR -R, SITE DU) on a
+ * shared, bounded ForkJoin pool. Each directory is handled by its own task,
+ * so sibling subtrees are walked in parallel. Operations run in the
+ * background and can be cancelled while they are in progress. The pool only
+ * walks: a sink that writes to a client should hand directories to the
+ * session through a {@link DirectoryQueue}.
+ */
+@Service
+public class RecursiveOperationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecursiveOperationService.class);
+
+    private static final long SHUTDOWN_WAIT_SECONDS = 5;
+
+    private final ForkJoinPool pool;
+    private final PathLockManager pathLockManager;
+    private final Set<RecursiveOperation<?>> running = ConcurrentHashMap.newKeySet();
+
+    public RecursiveOperationService(FtpServerConfig config, PathLockManager pathLockManager) {
+        this.pool = new ForkJoinPool(Math.max(1, config.getRecursiveParallelism()));
+        this.pathLockManager = pathLockManager;
+    }
+
+    /**
+     * Walks the tree below {@code dir} and hands every directory with its
+     * entries to the sink as soon as it has been read.
+     */
+    public RecursiveOperation<TreeStats> list(Path dir, DirectorySink sink) {
+        return start(dir, Mode.LIST, sink);
+    }
+
+    public RecursiveOperation<TreeStats> size(Path dir) {
+        return start(dir, Mode.SIZE, null);
+    }
+
+    /**
+     * Deletes {@code dir} and everything below it. Symbolic links are removed,
+     * never followed. Each entry is deleted under its exclusive path lock, so
+     * a file that is being transferred fails the operation once the lock
+     * timeout passes instead of being deleted underneath the transfer.
+     */
+    public RecursiveOperation<TreeStats> delete(Path dir) {
+        return start(dir, Mode.DELETE, null);
+    }
+
+    /**
+     * Cancels running operations and gives them a moment to stop. Any that
+     * are still running afterwards fail with a {@link CancellationException},
+     * so nobody waits on their result forever.
+     */
+    @PreDestroy
+    public void stop() {
+        for (RecursiveOperation<?> operation : running) {
+            operation.cancel();
+        }
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("{} recursive operations did not stop in time", running.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (RecursiveOperation<?> operation : running) {
+            operation.result.completeExceptionally(new CancellationException("Server is shutting down"));
+        }
+        pool.shutdownNow();
+    }
+
+    private RecursiveOperation<TreeStats> start(Path dir, Mode mode, DirectorySink sink) {
+        RecursiveOperation<TreeStats> operation = new RecursiveOperation<>();
+        TreeTask root = new TreeTask(dir, mode, sink, pathLockManager, operation.cancelled);
+
+        running.add(operation);
+        operation.result.whenComplete((stats, error) -> running.remove(operation));
+        try {
+            pool.execute(() -> run(root, operation));
+        } catch (RejectedExecutionException e) {
+            operation.result.completeExceptionally(new CancellationException("Server is shutting down"));
+        }
+        return operation;
+    }
+
+    private static void run(TreeTask root, RecursiveOperation<TreeStats> operation) {
+        try {
+            TreeStats stats = root.invoke();
+            if (operation.isCancelled()) {
+                operation.result.completeExceptionally(new CancellationException());
+            } else {
+                operation.result.complete(stats);
+            }
+        } catch (UncheckedIOException e) {
+            operation.result.completeExceptionally(ioCause(e));
+        } catch (Throwable t) {
+            operation.result.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * A failure joined from another worker arrives as a copy wrapping the
+     * original, so unwrap down to the IOException that was thrown.
+     */
+    private static Throwable ioCause(UncheckedIOException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof UncheckedIOException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private enum Mode {
+        LIST, SIZE, DELETE
+    }
+
+    @FunctionalInterface
+    public interface DirectorySink {
+        void accept(Path dir, List<Path> entries) throws IOException;
+    }
+
+    /**
+     * A sink that hands each listed directory to a consumer on another
+     * thread. The queue is bounded, so a consumer that falls behind holds
+     * the walk back; the walker waits as a managed block, letting the pool
+     * add a worker meanwhile so other operations keep running. Closing the
+     * queue drops whatever is offered afterwards and releases a waiting walker.
+     */
+    public static final class DirectoryQueue implements DirectorySink {
+        private static final long OFFER_POLL_MILLIS = 100;
+
+        private final BlockingQueue<Listing> listings;
+        private volatile boolean finished = false;
+        private volatile boolean closed = false;
+
+        public DirectoryQueue(int capacity) {
+            this.listings = new ArrayBlockingQueue<>(capacity);
+        }
+
+        @Override
+        public void accept(Path dir, List<Path> entries) throws IOException {
+            Offer offer = new Offer(new Listing(dir, entries));
+            try {
+                ForkJoinPool.managedBlock(offer);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for the listing consumer");
+            }
+        }
+
+        /**
+         * The next directory, or null if none arrived within the timeout.
+         */
+        public Listing poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return listings.poll(timeout, unit);
+        }
+
+        /**
+         * Marks the walk as done; call once its result has completed.
+         */
+        public void finish() {
+            finished = true;
+        }
+
+        /**
+         * Whether the walk is done and every directory has been taken.
+         */
+        public boolean isDone() {
+            return finished && listings.isEmpty();
+        }
+
+        public void close() {
+            closed = true;
+            listings.clear();
+        }
+
+        private final class Offer implements ForkJoinPool.ManagedBlocker {
+            private final Listing listing;
+            private boolean queued = false;
+
+            Offer(Listing listing) {
+                this.listing = listing;
+            }
+
+            @Override
+            public boolean block() throws InterruptedException {
+                while (!queued && !closed) {
+                    queued = listings.offer(listing, OFFER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                if (!queued && !closed) {
+                    queued = listings.offer(listing);
+                }
+                return queued || closed;
+            }
+        }
+    }
+
+    /**
+     * One directory and its entries, as handed over by a {@link DirectoryQueue}.
+     */
+    public static final class Listing {
+        private final Path directory;
+        private final List<Path> entries;
+
+        Listing(Path directory, List<Path> entries) {
+            this.directory = directory;
+            this.entries = entries;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public List<Path> getEntries() {
+            return entries;
+        }
+    }
+
+    /**
+     * Handle for an operation running in the background.
+     */
+    public static final class RecursiveOperation<T> {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        public CompletableFuture<T> result() {
+            return result;
+        }
+    }
+
+    /**
+     * Totals for a walked tree. The starting directory counts as one directory.
+     */
+    public static final class TreeStats {
+        private final long bytes;
+        private final long files;
+        private final long directories;
+
+        public TreeStats(long bytes, long files, long directories) {
+            this.bytes = bytes;
+            this.files = files;
+            this.directories = directories;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getFiles() {
+            return files;
+        }
+
+        public long getDirectories() {
+            return directories;
+        }
+
+        TreeStats plus(TreeStats other) {
+            return new TreeStats(bytes + other.bytes, files + other.files, directories + other.directories);
+        }
+    }
+
+    private static final class TreeTask extends RecursiveTask<TreeStats> {
+        private final Path dir;
+        private final Mode mode;
+        private final DirectorySink sink;
+        private final PathLockManager locks;
+        private final AtomicBoolean cancelled;
+
+        TreeTask(Path dir, Mode mode, DirectorySink sink, PathLockManager locks, AtomicBoolean cancelled) {
+            this.dir = dir;
+            this.mode = mode;
+            this.sink = sink;
+            this.locks = locks;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected TreeStats compute() {
+            if (cancelled.get()) return new TreeStats(0, 0, 0);
+
+            long bytes = 0;
+            long files = 0;
+            List<Path> entries = new ArrayList<>();
+            List<TreeTask> subtasks = new ArrayList<>();
+
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    if (cancelled.get()) break;
+
+                    BasicFileAttributes attrs = Files.readAttributes(
+                            entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attrs.isDirectory()) {
+                        subtasks.add(new TreeTask(entry, mode, sink, locks, cancelled));
+                    } else {
+                        if (mode == Mode.DELETE) {
+                            deleteLocked(entry);
+                        }
+                        bytes += attrs.size();
+                        files++;
+                    }
+                    if (mode == Mode.LIST) {
+                        entries.add(entry);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            // Handed over once the stream is closed, so a slow sink never holds it open
+            if (mode == Mode.LIST && !cancelled.get()) {
+                try {
+                    sink.accept(dir, entries);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            TreeStats stats = new TreeStats(bytes, files, 1);
+            for (TreeTask subtask : invokeAll(subtasks)) {
+                stats = stats.plus(subtask.join());
+            }
+
+            if (mode == Mode.DELETE && !cancelled.get()) {
+                try {
+                    deleteLocked(dir);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            logger.debug("{} {} done: {} files", mode, dir, stats.getFiles());
+            return stats;
+        }
+
+        private void deleteLocked(Path path) throws IOException {
+            try (PathLock lock = locks.tryLockWrite(path)) {
+                if (lock == null) {
+                    throw new FileSystemException(path.toString(), null, "file busy");
+                }
+                Files.delete(path);
+            }
+        }
+    }
+}
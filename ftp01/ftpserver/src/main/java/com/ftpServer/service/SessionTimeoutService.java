@@ -0,0 +1,128 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.service.HashedTimerWheel.Timeout;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks idle-control, data-accept and stalled-transfer deadlines for all
+ * sessions on a single {@link HashedTimerWheel}, and counts what it reaps.
+ * Timer tasks only close sockets; anything that writes to a client is
+ * handed to a separate reaper thread so a dead peer cannot hold up the wheel.
+ */
+@Service
+public class SessionTimeoutService implements MeterBinder {
+
+    public enum Reason {
+        IDLE("idle"),
+        DATA_ACCEPT("data-accept"),
+        STALLED_TRANSFER("stalled-transfer");
+
+        private final String tag;
+
+        Reason(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final FtpServerConfig config;
+    private final HashedTimerWheel wheel;
+    private final LongAdder[] reaped = new LongAdder[Reason.values().length];
+
+    // Threads only block in a goodbye write until the forced close frees them.
+    // When all are busy and the queue is full, sessions are closed without a goodbye.
+    private final ExecutorService reaper;
+
+    public SessionTimeoutService(FtpServerConfig config) {
+        this.config = config;
+        this.wheel = new HashedTimerWheel("ftp-timeouts", config.getTimerTickMillis(),
+                TimeUnit.MILLISECONDS, config.getTimerWheelSize());
+        for (int i = 0; i < reaped.length; i++) {
+            reaped[i] = new LongAdder();
+        }
+
+        int threads = Math.max(1, config.getReaperThreads());
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getReaperQueueCapacity())), r -> {
+                    Thread thread = new Thread(r, "ftp-reaper-" + threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.reaper = executor;
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return wheel.schedule(task, delay, unit);
+    }
+
+    public long getIdleTimeoutNanos() {
+        return TimeUnit.SECONDS.toNanos(config.getIdleTimeoutSeconds());
+    }
+
+    public long getTransferStallTimeoutNanos() {
+        return TimeUnit.SECONDS.toNanos(config.getTransferStallTimeoutSeconds());
+    }
+
+    /**
+     * Reaps a session: {@code goodbye} runs on the reaper thread and is
+     * followed by {@code forceClose}, which also runs on the wheel if the
+     * goodbye has not finished within the grace period. If every reaper
+     * thread is busy and the queue is full, the session is closed at once
+     * without a goodbye. Both must tolerate running more than once.
+     */
+    public void reap(Reason reason, Runnable goodbye, Runnable forceClose) {
+        recordReaped(reason);
+        Timeout deadline = wheel.schedule(forceClose, config.getReapGraceMillis(), TimeUnit.MILLISECONDS);
+        try {
+            reaper.execute(() -> {
+                try {
+                    goodbye.run();
+                } finally {
+                    deadline.cancel();
+                    forceClose.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            deadline.cancel();
+            forceClose.run();
+        }
+    }
+
+    public void recordReaped(Reason reason) {
+        reaped[reason.ordinal()].increment();
+    }
+
+    public long getReaped(Reason reason) {
+        return reaped[reason.ordinal()].sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Reason reason : Reason.values()) {
+            FunctionCounter.builder("ftp.sessions.reaped", reaped[reason.ordinal()], LongAdder::sum)
+                    .description("Sessions and data connections closed by a timeout")
+                    .tag("reason", reason.tag)
+                    .register(registry);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+        reaper.shutdownNow();
+    }
+}
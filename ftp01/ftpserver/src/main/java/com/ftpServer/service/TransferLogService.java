@@ -0,0 +1,235 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Transfer log in the wu-ftpd/vsftpd xferlog format.
+ *
+ * Sessions only copy a few references into a preallocated slot of a
+ * bounded multi-producer ring buffer; claiming a slot is a CAS, and nothing
+ * is formatted or written on the session thread. A single background
+ * writer formats whatever has been published and writes it with one flush
+ * per batch. When the ring is full, records are dropped and counted rather
+ * than holding up a transfer.
+ */
+@Service
+public class TransferLogService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferLogService.class);
+
+    private static final DateTimeFormatter XFERLOG_TIME =
+            DateTimeFormatter.ofPattern("EEE MMM ppd HH:mm:ss yyyy", Locale.US);
+
+    private final FtpServerConfig config;
+    private final Path rootDir;
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();   // next slot to claim
+    private volatile long tail = 0;                      // next slot to write, writer thread only
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running = false;
+    private Thread writerThread;
+
+    public TransferLogService(FtpServerConfig config) {
+        this.config = config;
+        this.rootDir = Paths.get(config.getRootDirectory()).toAbsolutePath();
+        int size = Integer.highestOneBit(Math.max(2, config.getTransferLogBufferSize() - 1) << 1);
+        this.ring = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot(i - size);
+        }
+        this.mask = size - 1;
+    }
+
+    public synchronized void start() {
+        String file = config.getTransferLogFile();
+        if (running || file == null || file.isBlank()) return;
+
+        Path logFile = Paths.get(file).toAbsolutePath();
+        Writer out;
+        try {
+            out = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.error("Cannot open transfer log {}, transfers will not be logged", logFile, e);
+            return;
+        }
+
+        running = true;
+        writerThread = new Thread(() -> writeLoop(out), "ftp-xferlog");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Writing transfer log to {}", logFile);
+    }
+
+    /**
+     * Records one transfer. Never blocks; drops the record and returns false
+     * if the writer has fallen a whole ring behind or the log is disabled.
+     */
+    public boolean record(InetAddress remoteHost, long durationNanos, long bytes, Path file, boolean ascii,
+                       boolean incoming, String username, boolean completed) {
+        if (!running) return false;
+
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= ring.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = ring[(int) (sequence & mask)];
+        slot.timeMillis = System.currentTimeMillis();
+        slot.durationNanos = durationNanos;
+        slot.remoteHost = remoteHost;
+        slot.bytes = bytes;
+        slot.file = file;
+        slot.ascii = ascii;
+        slot.incoming = incoming;
+        slot.username = username;
+        slot.completed = completed;
+        slot.published = sequence; // volatile write publishes the fields above
+        return true;
+    }
+
+    @PreDestroy
+    public void stop() {
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+        }
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop(Writer out) {
+        StringBuilder line = new StringBuilder(256);
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getTransferLogFlushIntervalMillis()));
+        try (out) {
+            while (true) {
+                boolean stopping = !running;
+                int batch = 0;
+                long next = tail;
+                Slot slot;
+                while ((slot = ring[(int) (next & mask)]).published == next) {
+                    format(slot, line);
+                    out.append(line);
+                    line.setLength(0);
+                    slot.clear();
+                    tail = ++next;
+                    batch++;
+                }
+
+                if (batch > 0) {
+                    out.flush();
+                    written.add(batch);
+                } else if (stopping) {
+                    // A producer that claimed a slot before stop() may still be filling it
+                    if (head.get() == next) return;
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(this, idleNanos);
+                }
+            }
+        } catch (IOException e) {
+            running = false;
+            logger.error("Transfer log writer failed, transfers will not be logged", e);
+        }
+    }
+
+    /**
+     * current-time transfer-time remote-host file-size filename transfer-type
+     * special-action-flag direction access-mode username service-name
+     * authentication-method authenticated-user-id completion-status
+     */
+    private void format(Slot slot, StringBuilder line) {
+        long seconds = Math.max(1, (slot.durationNanos + 500_000_000L) / 1_000_000_000L);
+        XFERLOG_TIME.formatTo(Instant.ofEpochMilli(slot.timeMillis).atZone(ZoneId.systemDefault()), line);
+        line.append(' ').append(seconds)
+                .append(' ').append(slot.remoteHost != null ? slot.remoteHost.getHostAddress() : "-")
+                .append(' ').append(slot.bytes)
+                .append(' ').append(toFtpPath(slot.file).replace(' ', '_'))
+                .append(' ').append(slot.ascii ? 'a' : 'b')
+                .append(" _ ")
+                .append(slot.incoming ? 'i' : 'o')
+                .append(" r ")
+                .append(slot.username != null ? slot.username : "-")
+                .append(" ftp 0 * ")
+                .append(slot.completed ? 'c' : 'i')
+                .append('\n');
+    }
+
+    private String toFtpPath(Path file) {
+        String relativePath = rootDir.relativize(file).toString();
+        return "/" + relativePath.replace(File.separatorChar, '/');
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ftp.transfer.log.records", written, LongAdder::sum)
+                .description("Transfer log records written")
+                .register(registry);
+        FunctionCounter.builder("ftp.transfer.log.dropped", dropped, LongAdder::sum)
+                .description("Transfer log records dropped because the ring buffer was full")
+                .register(registry);
+    }
+
+    /**
+     * A reusable ring entry. {@code published} holds the sequence number of
+     * the record it contains once that record is complete.
+     */
+    private static final class Slot {
+        private volatile long published;
+        private long timeMillis;
+        private long durationNanos;
+        private InetAddress remoteHost;
+        private long bytes;
+        private Path file;
+        private boolean ascii;
+        private boolean incoming;
+        private String username;
+        private boolean completed;
+
+        Slot(long published) {
+            this.published = published;
+        }
+
+        void clear() {
+            remoteHost = null;
+            file = null;
+            username = null;
+        }
+    }
+}
@@ -0,0 +1,670 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.model.UploadEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable stream of completed uploads for downstream processing.
+ *
+ * STOR publishes an event and waits until it is in the write-ahead journal.
+ * A single writer thread gathers whatever appends are pending into one write
+ * and one fsync (group commit), so concurrent uploads share the sync cost.
+ *
+ * A dispatcher thread reads committed records back from the journal and
+ * hands them to every {@link UploadEventListener} on a bounded pool. When
+ * the listeners fall behind only the dispatcher blocks; the backlog waits on
+ * disk, never in memory or on a control connection.
+ *
+ * The journal is a series of segment files. A checkpoint records the point
+ * up to which every listener has finished: on start-up everything after it
+ * is replayed, and segments wholly before it are deleted.
+ */
+@Service
+public class UploadEventJournal implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadEventJournal.class);
+
+    private static final int CHECKPOINT_MAGIC = 0x4654554A; // "FTUJ"
+    private static final int CHECKPOINT_VERSION = 1;
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // Each record is [length][payload][CRC32C of payload]
+    private static final int RECORD_OVERHEAD = Integer.BYTES * 2;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+    private static final long SHUTDOWN_GRACE_SECONDS = 5;
+
+    private final FtpServerConfig config;
+    private final List<UploadEventListener> listeners;
+    private final Path directory;
+    private final Path checkpointFile;
+    private final LinkedBlockingQueue<Append> appends = new LinkedBlockingQueue<>();
+    private final ConcurrentSkipListMap<Long, Position> inFlight = new ConcurrentSkipListMap<>();
+    private final Semaphore deliveryPermits;
+    private final ExecutorService consumers;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running = false;
+    private volatile Position committed = new Position(1, 0, 0);   // end of the last synced record
+    private volatile Position checkpoint = new Position(1, 0, 0);  // everything before it is delivered
+    private volatile Position lastDispatched;                      // dispatcher thread only, read by stop()
+
+    private FileChannel segment;                                   // writer thread only
+    private ByteBuffer batchBuffer = ByteBuffer.allocate(64 * 1024); // writer thread only
+    private Thread writer;
+    private Thread dispatcher;
+
+    public UploadEventJournal(FtpServerConfig config, ObjectProvider<UploadEventListener> listeners) {
+        this.config = config;
+        this.listeners = listeners.orderedStream().toList();
+        this.directory = Paths.get(config.getUploadJournalDirectory()).toAbsolutePath();
+        this.checkpointFile = directory.resolve(CHECKPOINT_FILE);
+
+        int threads = Math.max(1, config.getUploadEventThreads());
+        this.deliveryPermits = new Semaphore(Math.max(1, config.getUploadEventQueueCapacity()));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.consumers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "ftp-upload-consumer-" + threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Recovers the journal and starts the writer and dispatcher. Events that
+     * were not delivered before the last shutdown are replayed.
+     */
+    public synchronized void start() {
+        if (running) return;
+
+        try {
+            Files.createDirectories(directory);
+            checkpoint = loadCheckpoint();
+            committed = recover();
+            segment = FileChannel.open(segmentFile(committed.segment()),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            segment.position(committed.offset());
+        } catch (IOException e) {
+            logger.error("Upload journal {} is unavailable, upload events are disabled", directory, e);
+            return;
+        }
+
+        long backlog = committed.sequence() - checkpoint.sequence();
+        if (backlog > 0) {
+            logger.info("Replaying {} upload events from {}", backlog, directory);
+        }
+        lastDispatched = checkpoint;
+        running = true;
+
+        writer = new Thread(this::writeLoop, "ftp-upload-journal");
+        writer.setDaemon(true);
+        writer.start();
+        dispatcher = new Thread(this::dispatchLoop, "ftp-upload-dispatch");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Journals a completed upload and waits, at most the commit timeout, for
+     * it to be synced. Journal failures are logged; the upload itself has
+     * already succeeded and is not failed because of them.
+     */
+    public void publish(String username, Path path, long size) {
+        if (!running) return;
+
+        Append append = new Append(System.currentTimeMillis(), username, path.toAbsolutePath().normalize(), size);
+        appends.add(append);
+        try {
+            append.done.get(config.getUploadJournalCommitTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Upload event for {} not yet journaled after {}ms", path,
+                    config.getUploadJournalCommitTimeoutMillis());
+        } catch (ExecutionException e) {
+            logger.error("Upload event for {} was not journaled", path, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+        }
+
+        // The writer drains pending appends before it exits
+        join(writer);
+        dispatcher.interrupt();
+        join(dispatcher);
+
+        consumers.shutdown();
+        try {
+            if (!consumers.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) {
+                consumers.shutdownNow();
+                consumers.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            consumers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        saveCheckpoint();
+    }
+
+    // ---- Writer ----
+
+    private void writeLoop() {
+        List<Append> batch = new ArrayList<>();
+        try {
+            while (running || !appends.isEmpty()) {
+                Append first = appends.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                appends.drainTo(batch, Math.max(1, config.getUploadJournalMaxBatch()) - 1);
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeQuietly(segment);
+        }
+    }
+
+    /**
+     * Writes a batch with one write and one sync, then releases its publishers.
+     */
+    private void commit(List<Append> batch) {
+        Position start = committed;
+        long sequence = start.sequence();
+
+        ByteBuffer buffer = batchBuffer(batch);
+        for (Append append : batch) {
+            encode(buffer, new UploadEvent(++sequence, append.timestamp, append.username, append.path, append.size));
+        }
+        buffer.flip();
+        int bytes = buffer.remaining();
+
+        try {
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            if (config.isUploadJournalFsync()) {
+                segment.force(false);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to journal {} upload events", batch.size(), e);
+            // Cut off a partial batch so later records don't follow a torn one
+            try {
+                segment.truncate(start.offset());
+                segment.position(start.offset());
+            } catch (IOException truncateError) {
+                logger.error("Failed to roll back upload journal", truncateError);
+            }
+            for (Append append : batch) {
+                append.done.completeExceptionally(e);
+            }
+            return;
+        }
+
+        committed = new Position(start.segment(), start.offset() + bytes, sequence);
+        appended.add(batch.size());
+        commits.increment();
+        for (Append append : batch) {
+            append.done.complete(null);
+        }
+        LockSupport.unpark(dispatcher);
+
+        if (committed.offset() >= config.getUploadJournalSegmentBytes()) {
+            rollSegment();
+        }
+    }
+
+    private void rollSegment() {
+        Position end = committed;
+        long next = end.segment() + 1;
+        try {
+            FileChannel channel = FileChannel.open(segmentFile(next),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            closeQuietly(segment);
+            segment = channel;
+            committed = new Position(next, 0, end.sequence());
+        } catch (IOException e) {
+            logger.error("Failed to start upload journal segment {}, continuing in {}", next, end.segment(), e);
+        }
+    }
+
+    private ByteBuffer batchBuffer(List<Append> batch) {
+        int needed = 0;
+        for (Append append : batch) {
+            needed += RECORD_OVERHEAD + append.encodedLength();
+        }
+        if (batchBuffer.capacity() < needed) {
+            batchBuffer = ByteBuffer.allocate(Integer.highestOneBit(needed - 1) << 1);
+        }
+        batchBuffer.clear();
+        return batchBuffer;
+    }
+
+    private static void encode(ByteBuffer buffer, UploadEvent event) {
+        byte[] username = event.getUsername().getBytes(StandardCharsets.UTF_8);
+        byte[] path = event.getPath().toString().getBytes(StandardCharsets.UTF_8);
+        int length = Long.BYTES * 3 + Integer.BYTES * 2 + username.length + path.length;
+
+        int start = buffer.position();
+        buffer.putInt(length);
+        buffer.putLong(event.getSequence());
+        buffer.putLong(event.getTimestamp());
+        buffer.putLong(event.getSize());
+        buffer.putInt(username.length).put(username);
+        buffer.putInt(path.length).put(path);
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start + Integer.BYTES, length));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private static UploadEvent decode(ByteBuffer buffer) {
+        long sequence = buffer.getLong();
+        long timestamp = buffer.getLong();
+        long size = buffer.getLong();
+        String username = readString(buffer);
+        String path = readString(buffer);
+        return new UploadEvent(sequence, timestamp, username, Paths.get(path), size);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ---- Dispatcher ----
+
+    private void dispatchLoop() {
+        Position next = checkpoint;
+        RecordReader reader = null;
+        try {
+            while (running) {
+                Position end = committed;
+                if (reader == null || reader.segment != next.segment()) {
+                    closeQuietly(reader);
+                    reader = new RecordReader(next.segment(), FileChannel.open(segmentFile(next.segment()),
+                            StandardOpenOption.READ), next.offset());
+                }
+
+                // Segments before the writer's are complete and can be read to the end
+                long limit = next.segment() == end.segment() ? end.offset() : reader.channel.size();
+                UploadEvent event;
+                while (running && (event = reader.next(limit)) != null) {
+                    dispatch(event, next);
+                    next = new Position(next.segment(), reader.position, event.getSequence());
+                    lastDispatched = next;
+                }
+
+                if (running && next.segment() < end.segment()) {
+                    if (reader.corrupt) {
+                        logger.warn("Skipping corrupt upload journal records in segment {} after offset {}",
+                                next.segment(), next.offset());
+                    }
+                    next = new Position(next.segment() + 1, 0, next.sequence());
+                    lastDispatched = next;
+                    continue;
+                }
+
+                saveCheckpoint();
+                if (committed == end) {
+                    LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error("Upload event dispatcher stopped", e);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Queues one delivery per listener, blocking while the pool is saturated.
+     * The event stays in flight, and so in the replay window, until every
+     * listener has returned.
+     */
+    private void dispatch(UploadEvent event, Position start) throws InterruptedException {
+        if (listeners.isEmpty()) return;
+
+        inFlight.put(event.getSequence(), start);
+        AtomicInteger remaining = new AtomicInteger(listeners.size());
+        for (UploadEventListener listener : listeners) {
+            deliveryPermits.acquire();
+            try {
+                consumers.execute(() -> deliver(listener, event, remaining));
+            } catch (RejectedExecutionException e) {
+                deliveryPermits.release();
+                throw new InterruptedException("Upload event consumers are shut down");
+            }
+        }
+    }
+
+    private void deliver(UploadEventListener listener, UploadEvent event, AtomicInteger remaining) {
+        boolean finished = true;
+        try {
+            listener.onUpload(event);
+            delivered.increment();
+        } catch (InterruptedException e) {
+            // Interrupted by shutdown: leave the event in flight so it is replayed
+            finished = false;
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failed.increment();
+            logger.error("{} failed for {}", listener.getClass().getSimpleName(), event, e);
+        } finally {
+            deliveryPermits.release();
+            if (finished && remaining.decrementAndGet() == 0) {
+                inFlight.remove(event.getSequence());
+            }
+        }
+    }
+
+    // ---- Checkpoint and recovery ----
+
+    /**
+     * Persists the start of the oldest undelivered event and drops the
+     * segments before it. Called by the dispatcher, and by stop() after it.
+     */
+    private void saveCheckpoint() {
+        Map.Entry<Long, Position> oldest = inFlight.firstEntry();
+        Position mark = oldest != null ? oldest.getValue() : lastDispatched;
+        if (mark == null || mark.equals(checkpoint)) return;
+
+        Path tempFile = checkpointFile.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeLong(mark.segment());
+                out.writeLong(mark.offset());
+                out.writeLong(mark.sequence());
+            }
+            Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to write upload journal checkpoint", e);
+            return;
+        }
+
+        long oldSegment = checkpoint.segment();
+        checkpoint = mark;
+        for (long id = oldSegment; id < mark.segment(); id++) {
+            try {
+                Files.deleteIfExists(segmentFile(id));
+            } catch (IOException e) {
+                logger.warn("Failed to delete upload journal segment {}", id, e);
+            }
+        }
+    }
+
+    private Position loadCheckpoint() throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                throw new IOException("Unknown upload journal checkpoint format in " + checkpointFile);
+            }
+            return new Position(in.readLong(), in.readLong(), in.readLong());
+        } catch (NoSuchFileException e) {
+            List<Long> segments = listSegments();
+            return new Position(segments.isEmpty() ? 1 : segments.get(0), 0, 0);
+        }
+    }
+
+    /**
+     * Finds the end of the journal and the last sequence number, cutting off
+     * a record torn by a crash at the tail of the newest segment.
+     */
+    private Position recover() throws IOException {
+        Position mark = checkpoint;
+        long sequence = mark.sequence();
+        Position end = null;
+
+        List<Long> segments = listSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            long id = segments.get(i);
+            if (id < mark.segment()) {
+                Files.deleteIfExists(segmentFile(id));
+                continue;
+            }
+
+            boolean newest = i == segments.size() - 1;
+            long from = id == mark.segment() ? mark.offset() : 0;
+            try (RecordReader reader = new RecordReader(id, FileChannel.open(segmentFile(id),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE), from)) {
+                long size = reader.channel.size();
+                UploadEvent event;
+                while ((event = reader.next(size)) != null) {
+                    sequence = event.getSequence();
+                }
+                if (newest) {
+                    if (reader.position < size) {
+                        logger.warn("Truncating {} bytes of torn upload journal records in segment {}",
+                                size - reader.position, id);
+                        reader.channel.truncate(reader.position);
+                    }
+                    end = new Position(id, reader.position, sequence);
+                }
+            }
+        }
+
+        if (end == null) {
+            // Nothing left on disk from the checkpoint on; start its segment afresh
+            checkpoint = new Position(mark.segment(), 0, sequence);
+            end = checkpoint;
+        }
+        return end;
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentFile(long id) {
+        return directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_GRACE_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            logger.debug("Error closing upload journal file", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ftp.upload.events.appended", appended, LongAdder::sum)
+                .description("Upload events written to the journal")
+                .register(registry);
+        FunctionCounter.builder("ftp.upload.journal.commits", commits, LongAdder::sum)
+                .description("Journal group commits; appended / commits is the batching factor")
+                .register(registry);
+        FunctionCounter.builder("ftp.upload.events.delivered", delivered, LongAdder::sum)
+                .description("Upload event deliveries that listeners completed")
+                .tag("outcome", "success")
+                .register(registry);
+        FunctionCounter.builder("ftp.upload.events.delivered", failed, LongAdder::sum)
+                .description("Upload event deliveries that listeners completed")
+                .tag("outcome", "failure")
+                .register(registry);
+        Gauge.builder("ftp.upload.events.backlog", this,
+                        journal -> journal.committed.sequence() - journal.checkpoint.sequence())
+                .description("Journaled upload events not yet delivered to every listener")
+                .register(registry);
+    }
+
+    /**
+     * A point in the journal: a segment, a byte offset in it, and the
+     * sequence number of the last record before that offset.
+     */
+    private record Position(long segment, long offset, long sequence) {
+    }
+
+    private static final class Append {
+        private final long timestamp;
+        private final String username;
+        private final Path path;
+        private final long size;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Append(long timestamp, String username, Path path, long size) {
+            this.timestamp = timestamp;
+            this.username = username;
+            this.path = path;
+            this.size = size;
+        }
+
+        int encodedLength() {
+            return Long.BYTES * 3 + Integer.BYTES * 2
+                    + username.getBytes(StandardCharsets.UTF_8).length
+                    + path.toString().getBytes(StandardCharsets.UTF_8).length;
+        }
+    }
+
+    /**
+     * Reads records from one segment, stopping at the end of the readable
+     * range or at the first record that fails its length or CRC check.
+     */
+    private static final class RecordReader implements Closeable {
+        private final long segment;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(2 * MAX_RECORD_LENGTH);
+        private long position; // file offset of the next record, which starts at buffer.position()
+        private boolean corrupt = false;
+
+        RecordReader(long segment, FileChannel channel, long position) {
+            this.segment = segment;
+            this.channel = channel;
+            this.position = position;
+            buffer.limit(0);
+        }
+
+        UploadEvent next(long limit) throws IOException {
+            if (corrupt || !fill(Integer.BYTES, limit)) return null;
+
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                corrupt = true;
+                return null;
+            }
+            int total = length + RECORD_OVERHEAD;
+            if (!fill(total, limit)) return null;
+
+            start = buffer.position();
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(start + Integer.BYTES, length));
+            if ((int) crc.getValue() != buffer.getInt(start + Integer.BYTES + length)) {
+                corrupt = true;
+                return null;
+            }
+
+            buffer.position(start + Integer.BYTES);
+            UploadEvent event = decode(buffer);
+            buffer.position(start + total);
+            position += total;
+            return event;
+        }
+
+        /**
+         * Makes sure {@code needed} bytes from {@link #position} are buffered,
+         * reading no further than {@code limit}.
+         */
+        private boolean fill(int needed, long limit) throws IOException {
+            if (buffer.remaining() >= needed) return true;
+            if (position + needed > limit) return false;
+
+            buffer.compact();
+            long fileOffset = position + buffer.position();
+            while (buffer.position() < needed) {
+                int room = (int) Math.min(buffer.remaining(), limit - fileOffset);
+                ByteBuffer window = buffer.slice(buffer.position(), room);
+                int read = channel.read(window, fileOffset);
+                if (read <= 0) break;
+                buffer.position(buffer.position() + read);
+                fileOffset += read;
+            }
+            buffer.flip();
+            return buffer.remaining() >= needed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
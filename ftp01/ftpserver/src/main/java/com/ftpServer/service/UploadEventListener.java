@@ -0,0 +1,21 @@
+package com.ftpServer.service;
+
+import com.ftpServer.model.UploadEvent;
+
+/**
+ * Consumer of completed uploads. Any Spring bean implementing this interface
+ * is called by {@link UploadEventJournal} on its consumer pool.
+ *
+ * Delivery is at-least-once: events that were not acknowledged before a
+ * restart are replayed from the journal. Events may be delivered
+ * concurrently and out of order, so implementations must be thread-safe and
+ * should use {@link UploadEvent#getSequence()} where order matters.
+ */
+public interface UploadEventListener {
+
+    /**
+     * Handles one event. Throwing marks the delivery as failed; it is logged
+     * and not retried.
+     */
+    void onUpload(UploadEvent event) throws Exception;
+}
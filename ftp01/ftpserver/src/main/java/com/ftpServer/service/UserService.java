@@ -1,8 +1,10 @@
 package com.ftpServer.service;
 
+import com.ftpServer.config.FtpServerConfig;
 import com.ftpServer.model.FtpUser;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -12,11 +14,12 @@ public class UserService {
 
     private final Map<String, FtpUser> users = new HashMap<>();
 
-    public UserService() {
+    public UserService(FtpServerConfig config) {
         // Initialize default users
         users.put("admin", new FtpUser("admin", "admin123", "/", true));
         users.put("user1", new FtpUser("user1", "pass1", "/user1", false));
-        users.put("guest", new FtpUser("guest", "guest", "/guest", true));
+        users.put("guest", new FtpUser("guest", "guest", "/guest", true,
+                config.getGuestMaxBytes(), config.getGuestMaxFiles()));
     }
 
     public Optional<FtpUser> authenticate(String username, String password) {
@@ -36,4 +39,8 @@ public class UserService {
 
         users.put(user.getUsername(), user);
     }
+
+    public Collection<FtpUser> getUsers() {
+        return users.values();
+    }
 }
@@ -0,0 +1,99 @@
+package com.ftpServer;
+
+import com.ftpServer.service.FtpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Connections accepted per second, measured from connect to the 220 greeting.
+ * Run with {@code mvn test -Pbenchmark}; acceptor settings can be changed
+ * with the usual {@code ftp.server.*} properties below.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"ftp.server.port=0",
+		"ftp.server.root-directory=target/benchmark-root",
+		"ftp.server.quota-ledger-file=target/benchmark-quota.ledger",
+		"ftp.server.max-threads=64",
+		"ftp.server.acceptor-threads=4",
+		"ftp.server.accept-backlog=1024",
+		"ftp.server.reuse-port=true"
+})
+class FtpServerAcceptBenchmarkTests {
+
+	private static final int CLIENTS = 32;
+	private static final int CONNECTIONS_PER_CLIENT = 500;
+
+	@Autowired
+	private FtpServer ftpServer;
+
+	@Test
+	void connectionsAcceptedPerSecond() throws Exception {
+		int port = awaitPort();
+
+		// Warm up the accept and session paths before measuring
+		runClients(port, 4, 100);
+
+		long start = System.nanoTime();
+		int accepted = runClients(port, CLIENTS, CONNECTIONS_PER_CLIENT);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("Accepted %d connections in %.2f s: %.0f connections/s%n",
+				accepted, seconds, accepted / seconds);
+		assertTrue(accepted == CLIENTS * CONNECTIONS_PER_CLIENT);
+	}
+
+	private int awaitPort() throws InterruptedException {
+		for (int i = 0; i < 100 && ftpServer.getLocalPort() <= 0; i++) {
+			Thread.sleep(100);
+		}
+		assertTrue(ftpServer.getLocalPort() > 0, "FTP server did not start");
+		return ftpServer.getLocalPort();
+	}
+
+	private int runClients(int port, int clients, int connectionsPerClient) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(clients);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> results = new ArrayList<>();
+
+		for (int c = 0; c < clients; c++) {
+			results.add(pool.submit(() -> {
+				start.await();
+				int greeted = 0;
+				for (int i = 0; i < connectionsPerClient; i++) {
+					try (Socket socket = new Socket("127.0.0.1", port);
+						 BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+						String greeting = reader.readLine();
+						if (greeting != null && greeting.startsWith("220")) {
+							greeted++;
+						}
+					}
+				}
+				return greeted;
+			}));
+		}
+
+		start.countDown();
+		int total = 0;
+		for (Future<Integer> result : results) {
+			total += result.get(5, TimeUnit.MINUTES);
+		}
+		pool.shutdown();
+		return total;
+	}
+}
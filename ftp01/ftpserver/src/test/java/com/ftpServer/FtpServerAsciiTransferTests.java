@@ -0,0 +1,124 @@
+package com.ftpServer;
+
+import com.ftpServer.service.FtpServer;
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TYPE A uploads, downloads and SIZE as an FTP client sees them, with a
+ * 1024 byte limit on the files SIZE will scan.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"ftp.server.port=0",
+		"ftp.server.root-directory=target/ascii-test/root",
+		"ftp.server.quota-ledger-file=target/ascii-test/quota.ledger",
+		"ftp.server.upload-journal-directory=target/ascii-test/journal",
+		"ftp.server.transfer-log-file=",
+		"ftp.server.file-index-watch=false",
+		"ftp.server.ascii-size-max-scan-bytes=1024"
+})
+class FtpServerAsciiTransferTests {
+
+	private static final Path ROOT = Paths.get("target/ascii-test/root");
+
+	@Autowired
+	private FtpServer ftpServer;
+
+	private FTPClient client;
+
+	@BeforeAll
+	static void cleanRoot() throws IOException {
+		FileSystemUtils.deleteRecursively(Paths.get("target/ascii-test"));
+		Files.createDirectories(ROOT);
+	}
+
+	@BeforeEach
+	void login() throws Exception {
+		for (int i = 0; i < 100 && ftpServer.getLocalPort() <= 0; i++) {
+			Thread.sleep(100);
+		}
+		client = new FTPClient();
+		client.connect("127.0.0.1", ftpServer.getLocalPort());
+		assertTrue(client.login("admin", "admin123"));
+		client.enterLocalPassiveMode();
+	}
+
+	@AfterEach
+	void logout() throws IOException {
+		client.disconnect();
+	}
+
+	@Test
+	void asciiUploadIsStoredWithLfAndDownloadsUnchanged() throws Exception {
+		String text = "first line\nsecond line\n\nlast line without newline";
+		assertTrue(client.setFileType(FTP.ASCII_FILE_TYPE));
+		// The client sends CRLF, which the server stores as LF
+		assertTrue(client.storeFile("text.txt", new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII))));
+		assertEquals(text, Files.readString(ROOT.resolve("text.txt"), StandardCharsets.US_ASCII));
+
+		assertEquals(text, download("text.txt"));
+		assertEquals(String.valueOf(text.length() + 3), size("text.txt"));
+
+		assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+		assertEquals(String.valueOf(text.length()), size("text.txt"));
+	}
+
+	@Test
+	void asciiSizeCountsOnlyBareLineFeeds() throws Exception {
+		Files.writeString(ROOT.resolve("mixed.txt"), "dos\r\nunix\nend", StandardCharsets.US_ASCII);
+		assertTrue(client.setFileType(FTP.ASCII_FILE_TYPE));
+		assertEquals("14", size("mixed.txt"));
+
+		// An edit changes the size and modification time, so the cached value is not reused
+		Files.writeString(ROOT.resolve("mixed.txt"), "dos\r\nunix\nend\n", StandardCharsets.US_ASCII);
+		assertEquals("16", size("mixed.txt"));
+	}
+
+	@Test
+	void largeFileHasNoAsciiSizeUntilItHasBeenDownloaded() throws Exception {
+		StringBuilder text = new StringBuilder();
+		while (text.length() <= 4096) {
+			text.append("line ").append(text.length()).append('\n');
+		}
+		long lines = text.chars().filter(c -> c == '\n').count();
+		Files.writeString(ROOT.resolve("large.txt"), text, StandardCharsets.US_ASCII);
+
+		assertTrue(client.setFileType(FTP.ASCII_FILE_TYPE));
+		assertEquals(550, client.sendCommand("SIZE", "large.txt"));
+
+		assertEquals(text.toString(), download("large.txt"));
+		assertEquals(String.valueOf(text.length() + lines), size("large.txt"));
+
+		assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+		assertEquals(String.valueOf(text.length()), size("large.txt"));
+	}
+
+	private String download(String path) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertTrue(client.retrieveFile(path, out));
+		return out.toString(StandardCharsets.US_ASCII);
+	}
+
+	private String size(String path) throws IOException {
+		assertEquals(213, client.sendCommand("SIZE", path));
+		return client.getReplyString().substring(4).trim();
+	}
+}
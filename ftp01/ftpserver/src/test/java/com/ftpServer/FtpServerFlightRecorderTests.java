@@ -0,0 +1,152 @@
+package com.ftpServer;
+
+import com.ftpServer.jfr.DataAcceptEvent;
+import com.ftpServer.jfr.DataTransferEvent;
+import com.ftpServer.jfr.FtpCommandEvent;
+import com.ftpServer.jfr.SessionQueueEvent;
+import com.ftpServer.service.FtpServer;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The server's JFR events as a recording sees them while a client logs in,
+ * uploads and downloads a file.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"ftp.server.port=0",
+		"ftp.server.root-directory=target/jfr-test/root",
+		"ftp.server.quota-ledger-file=target/jfr-test/quota.ledger",
+		"ftp.server.upload-journal-directory=target/jfr-test/journal",
+		"ftp.server.transfer-log-file=",
+		"ftp.server.file-index-watch=false"
+})
+class FtpServerFlightRecorderTests {
+
+	private static final List<Class<? extends Event>> EVENTS = List.of(FtpCommandEvent.class,
+			DataTransferEvent.class, DataAcceptEvent.class, SessionQueueEvent.class);
+
+	@Autowired
+	private FtpServer ftpServer;
+
+	@BeforeAll
+	static void cleanRoot() throws IOException {
+		FileSystemUtils.deleteRecursively(Paths.get("target/jfr-test"));
+	}
+
+	@Test
+	void commandsAndTransfersAreRecorded() throws Exception {
+		Queue<RecordedEvent> recorded = new ConcurrentLinkedQueue<>();
+		byte[] content = new byte[100_000];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+
+		try (RecordingStream stream = new RecordingStream()) {
+			for (Class<? extends Event> event : EVENTS) {
+				String name = EventType.getEventType(event).getName();
+				stream.enable(name).withoutThreshold();
+				stream.onEvent(name, recorded::add);
+			}
+			stream.startAsync();
+
+			for (int i = 0; i < 100 && ftpServer.getLocalPort() <= 0; i++) {
+				Thread.sleep(100);
+			}
+			FTPClient client = new FTPClient();
+			client.connect("127.0.0.1", ftpServer.getLocalPort());
+			String clientAddress = "/127.0.0.1:" + client.getLocalPort();
+			try {
+				assertTrue(client.login("admin", "admin123"));
+				client.enterLocalPassiveMode();
+				assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+				assertTrue(client.storeFile("recorded.bin", new ByteArrayInputStream(content)));
+				ByteArrayOutputStream downloaded = new ByteArrayOutputStream();
+				assertTrue(client.retrieveFile("recorded.bin", downloaded));
+				assertArrayEquals(content, downloaded.toByteArray());
+				client.logout();
+			} finally {
+				client.disconnect();
+			}
+
+			// Streamed events arrive about once a second
+			RecordedEvent queued = await(recorded, event -> is(event, SessionQueueEvent.class)
+					&& clientAddress.equals(event.getString("remoteAddress")));
+			assertTrue(queued.getInt("queueLength") >= 0);
+			assertFalse(queued.getDuration().isNegative());
+
+			RecordedEvent pass = awaitCommand(recorded, "PASS");
+			assertEquals(230, pass.getInt("replyCode"));
+			assertEquals(226, awaitCommand(recorded, "STOR").getInt("replyCode"));
+			RecordedEvent retr = awaitCommand(recorded, "RETR");
+			assertEquals(226, retr.getInt("replyCode"));
+			assertTrue(retr.getDuration().toNanos() > 0);
+
+			RecordedEvent upload = awaitTransfer(recorded, DataTransferEvent.UPLOAD);
+			RecordedEvent download = awaitTransfer(recorded, DataTransferEvent.DOWNLOAD);
+			for (RecordedEvent transfer : List.of(upload, download)) {
+				assertEquals(content.length, transfer.getLong("bytes"));
+				assertFalse(transfer.getBoolean("ascii"));
+				assertTrue(transfer.getBoolean("completed"));
+			}
+
+			RecordedEvent accept = await(recorded, event -> is(event, DataAcceptEvent.class)
+					&& event.getString("remoteAddress") != null
+					&& event.getString("remoteAddress").startsWith("/127.0.0.1:"));
+			assertTrue(accept.getInt("port") > 0);
+			assertFalse(accept.getBoolean("timedOut"));
+			assertEquals(2, recorded.stream().filter(event -> is(event, DataAcceptEvent.class)).count());
+		}
+	}
+
+	private static RecordedEvent awaitCommand(Queue<RecordedEvent> recorded, String verb) throws InterruptedException {
+		return await(recorded, event -> is(event, FtpCommandEvent.class)
+				&& verb.equals(event.getString("verb")) && "admin".equals(event.getString("user")));
+	}
+
+	private static RecordedEvent awaitTransfer(Queue<RecordedEvent> recorded, String direction)
+			throws InterruptedException {
+		return await(recorded, event -> is(event, DataTransferEvent.class)
+				&& direction.equals(event.getString("direction"))
+				&& event.getString("path").endsWith("recorded.bin"));
+	}
+
+	private static RecordedEvent await(Queue<RecordedEvent> recorded, Predicate<RecordedEvent> match)
+			throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			for (RecordedEvent event : recorded) {
+				if (match.test(event)) {
+					return event;
+				}
+			}
+			Thread.sleep(100);
+		}
+		throw new AssertionError("No matching event among " + recorded.size() + " recorded");
+	}
+
+	private static boolean is(RecordedEvent event, Class<? extends Event> type) {
+		return event.getEventType().getName().equals(EventType.getEventType(type).getName());
+	}
+}
@@ -0,0 +1,174 @@
+package com.ftpServer;
+
+import com.ftpServer.service.FtpServer;
+import com.ftpServer.service.QuotaService;
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Quota enforcement as an FTP client sees it, for the guest account with a
+ * 1000 byte, 3 file quota.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"ftp.server.port=0",
+		"ftp.server.root-directory=target/quota-test/root",
+		"ftp.server.quota-ledger-file=target/quota-test/quota.ledger",
+		"ftp.server.upload-journal-directory=target/quota-test/journal",
+		"ftp.server.transfer-log-file=",
+		"ftp.server.file-index-watch=false",
+		"ftp.server.guest-max-bytes=1000",
+		"ftp.server.guest-max-files=3"
+})
+class FtpServerQuotaTests {
+
+	private static final Path ROOT = Paths.get("target/quota-test/root");
+	private static final Path HOME = ROOT.resolve("guest");
+
+	@Autowired
+	private FtpServer ftpServer;
+
+	@Autowired
+	private QuotaService quotaService;
+
+	private FTPClient guest;
+
+	@BeforeAll
+	static void cleanRoot() throws IOException {
+		FileSystemUtils.deleteRecursively(Paths.get("target/quota-test"));
+	}
+
+	@BeforeEach
+	void emptyGuestHome() throws Exception {
+		Files.createDirectories(HOME);
+		try (var entries = Files.list(HOME)) {
+			for (Path entry : (Iterable<Path>) entries::iterator) {
+				FileSystemUtils.deleteRecursively(entry);
+			}
+		}
+		quotaService.reconcile().get(10, TimeUnit.SECONDS);
+		guest = login("guest", "guest");
+	}
+
+	@AfterEach
+	void logout() throws IOException {
+		guest.disconnect();
+	}
+
+	@Test
+	void uploadPastTheByteQuotaIsRefusedAndRemoved() throws Exception {
+		assertTrue(store(guest, "a.bin", 600));
+		assertEquals("213 Used 600 of 1000 bytes, 1 of 3 files", quota(guest));
+
+		assertFalse(store(guest, "b.bin", 600));
+		assertEquals(552, guest.getReplyCode());
+		assertFalse(Files.exists(HOME.resolve("b.bin")));
+		assertEquals("213 Used 600 of 1000 bytes, 1 of 3 files", quota(guest));
+
+		assertTrue(store(guest, "b.bin", 400));
+		assertFalse(store(guest, "c.bin", 1));
+		assertEquals(552, guest.getReplyCode());
+		assertEquals("Disk quota exceeded", guest.getReplyString().substring(4).trim());
+	}
+
+	@Test
+	void overwriteIsChargedTheDifferenceAndARefusedOneKeepsTheOldFile() throws Exception {
+		assertTrue(store(guest, "a.bin", 600));
+		assertTrue(store(guest, "a.bin", 900));
+		assertEquals("213 Used 900 of 1000 bytes, 1 of 3 files", quota(guest));
+		assertTrue(store(guest, "a.bin", 100));
+		assertEquals("213 Used 100 of 1000 bytes, 1 of 3 files", quota(guest));
+
+		assertFalse(store(guest, "a.bin", 1_001));
+		assertEquals(552, guest.getReplyCode());
+		assertArrayEquals(content(100), Files.readAllBytes(HOME.resolve("a.bin")));
+		assertEquals("213 Used 100 of 1000 bytes, 1 of 3 files", quota(guest));
+		try (var entries = Files.list(HOME)) {
+			assertEquals(1, entries.count());
+		}
+	}
+
+	@Test
+	void fileCountQuotaCoversFilesAndDirectories() throws Exception {
+		assertTrue(guest.makeDirectory("dir"));
+		assertTrue(store(guest, "dir/a.bin", 1));
+		assertTrue(store(guest, "b.bin", 1));
+
+		assertFalse(store(guest, "c.bin", 1));
+		assertEquals(552, guest.getReplyCode());
+		assertFalse(guest.makeDirectory("other"));
+		assertEquals(552, guest.getReplyCode());
+
+		assertTrue(guest.deleteFile("b.bin"));
+		assertTrue(guest.makeDirectory("other"));
+	}
+
+	@Test
+	void uploadsAreChargedToTheHomeTheyLandIn() throws Exception {
+		// A quota user cannot escape the quota by writing outside their home
+		assertFalse(store(guest, "/outside.bin", 10));
+		assertEquals(550, guest.getReplyCode());
+		assertFalse(guest.makeDirectory("/outside"));
+		assertEquals(550, guest.getReplyCode());
+
+		FTPClient admin = login("admin", "admin123");
+		try {
+			assertTrue(store(admin, "/guest/from-admin.bin", 700));
+			assertFalse(store(admin, "/guest/too-big.bin", 400));
+			assertEquals(552, admin.getReplyCode());
+			assertTrue(store(admin, "/elsewhere.bin", 5_000));
+		} finally {
+			admin.disconnect();
+			Files.deleteIfExists(ROOT.resolve("elsewhere.bin"));
+		}
+		assertEquals("213 Used 700 of 1000 bytes, 1 of 3 files", quota(guest));
+	}
+
+	private FTPClient login(String user, String password) throws Exception {
+		for (int i = 0; i < 100 && ftpServer.getLocalPort() <= 0; i++) {
+			Thread.sleep(100);
+		}
+		FTPClient client = new FTPClient();
+		client.connect("127.0.0.1", ftpServer.getLocalPort());
+		assertTrue(client.login(user, password));
+		client.enterLocalPassiveMode();
+		assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+		return client;
+	}
+
+	private static boolean store(FTPClient client, String path, int size) throws IOException {
+		return client.storeFile(path, new ByteArrayInputStream(content(size)));
+	}
+
+	private static String quota(FTPClient client) throws IOException {
+		client.sendSiteCommand("QUOTA");
+		return client.getReplyString().trim();
+	}
+
+	private static byte[] content(int size) {
+		byte[] bytes = new byte[size];
+		for (int i = 0; i < size; i++) {
+			bytes[i] = (byte) (size + i);
+		}
+		return bytes;
+	}
+}
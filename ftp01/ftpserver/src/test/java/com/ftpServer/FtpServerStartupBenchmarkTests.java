@@ -0,0 +1,112 @@
+package com.ftpServer;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Time from launching a fresh JVM to the first 220 greeting, for the
+ * default configuration and the fast-startup profile. Run with
+ * {@code mvn test -Pbenchmark}; after {@code mvn -Pfast-startup package}
+ * the AOT-processed jar with its CDS archive is measured as well.
+ */
+@Tag("benchmark")
+class FtpServerStartupBenchmarkTests {
+
+	private static final int RUNS = 5;
+	private static final long GREETING_TIMEOUT_SECONDS = 60;
+
+	@TempDir
+	Path workDir;
+
+	@Test
+	void timeToFirstGreeting() throws Exception {
+		String classpath = System.getProperty("java.class.path");
+
+		report("default", measure(List.of("-cp", classpath, FtpServerApplication.class.getName())));
+		report("fast-startup", measure(List.of("-Dspring.profiles.active=fast-startup",
+				"-cp", classpath, FtpServerApplication.class.getName())));
+
+		Path jar = Paths.get("target", "ftp-server-1.0.0.jar").toAbsolutePath();
+		Path archive = Paths.get("target", "app.jsa").toAbsolutePath();
+		if (Files.exists(jar) && Files.exists(archive)) {
+			report("fast-startup + AOT + CDS", measure(List.of("-XX:SharedArchiveFile=" + archive,
+					"-Dspring.aot.enabled=true", "-Dspring.profiles.active=fast-startup", "-jar", jar.toString())));
+		}
+	}
+
+	private List<Long> measure(List<String> launch) throws Exception {
+		List<Long> millis = new ArrayList<>();
+		for (int run = 0; run < RUNS; run++) {
+			int port = freePort();
+			List<String> command = new ArrayList<>();
+			command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+			command.addAll(launch);
+			command.add("--ftp.server.port=" + port);
+			command.add("--server.port=0");
+
+			Process process = new ProcessBuilder(command)
+					.directory(workDir.toFile())
+					.redirectErrorStream(true)
+					.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+					.start();
+			long start = System.nanoTime();
+			try {
+				awaitGreeting(port, process);
+				millis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			} finally {
+				process.destroy();
+				if (!process.waitFor(30, TimeUnit.SECONDS)) {
+					process.destroyForcibly();
+				}
+			}
+		}
+		return millis;
+	}
+
+	private static void awaitGreeting(int port, Process process) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(GREETING_TIMEOUT_SECONDS);
+		while (System.nanoTime() < deadline) {
+			assertTrue(process.isAlive(), "FTP server exited before greeting");
+			try (Socket socket = new Socket()) {
+				socket.connect(new InetSocketAddress("127.0.0.1", port), 100);
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+				String greeting = reader.readLine();
+				if (greeting != null && greeting.startsWith("220")) return;
+			} catch (IOException e) {
+				// Not listening yet
+			}
+			Thread.sleep(5);
+		}
+		throw new AssertionError("No 220 greeting within " + GREETING_TIMEOUT_SECONDS + " s");
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static void report(String name, List<Long> millis) {
+		List<Long> sorted = new ArrayList<>(millis);
+		Collections.sort(sorted);
+		System.out.printf("%-26s launch to 220: median %d ms, best %d ms (%s)%n",
+				name, sorted.get(sorted.size() / 2), sorted.get(0), millis);
+	}
+}
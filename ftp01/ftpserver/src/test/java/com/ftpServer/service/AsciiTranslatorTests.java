@@ -0,0 +1,90 @@
+package com.ftpServer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AsciiTranslatorTests {
+
+	private static final String TEXT = "first line\nsecond\r\n\n\rthird with a long run of text\n\r\nlast";
+
+	@Test
+	void encodeTurnsBareLineFeedsIntoCrlfAcrossBufferSizes() {
+		String expected = "first line\r\nsecond\r\n\r\n\rthird with a long run of text\r\n\r\nlast";
+		for (int size = 2; size <= 32; size++) {
+			assertEquals(expected, translate(TEXT, size, true), "buffer size " + size);
+		}
+	}
+
+	@Test
+	void decodeTurnsCrlfIntoLineFeedsAcrossBufferSizes() {
+		String expected = "first line\nsecond\n\n\rthird with a long run of text\n\nlast";
+		for (int size = 1; size <= 32; size++) {
+			assertEquals(expected, translate(TEXT, size, false), "buffer size " + size);
+		}
+		assertEquals("trailing\r", translate("trailing\r", 4, false));
+	}
+
+	@Test
+	void countMatchesEncodedGrowth() {
+		byte[] bytes = TEXT.getBytes(StandardCharsets.US_ASCII);
+		int encoded = translate(TEXT, 64, true).length();
+
+		for (int size = 1; size <= 16; size++) {
+			long count = 0;
+			byte previous = 0;
+			for (int from = 0; from < bytes.length; from += size) {
+				ByteBuffer chunk = ByteBuffer.wrap(bytes, from, Math.min(size, bytes.length - from));
+				count += AsciiTranslator.countBareLineFeeds(chunk, previous);
+				previous = bytes[chunk.limit() - 1];
+			}
+			assertEquals(encoded - bytes.length, count, "chunk size " + size);
+		}
+	}
+
+	@Test
+	void indexOfFindsEveryPosition() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(40);
+		for (int i = 0; i < 40; i++) {
+			buffer.put(i, (byte) 'x');
+		}
+		for (int at = 0; at < 40; at++) {
+			buffer.put(at, (byte) '\n');
+			assertEquals(at, AsciiTranslator.indexOf(buffer, 0, 40, (byte) '\n'));
+			assertEquals(-1, AsciiTranslator.indexOf(buffer, at + 1, 40, (byte) '\n'));
+			buffer.put(at, (byte) 'x');
+		}
+	}
+
+	private static String translate(String text, int bufferSize, boolean encode) {
+		byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+		AsciiTranslator translator = new AsciiTranslator();
+		ByteBuffer dst = ByteBuffer.allocate(bufferSize);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		for (int from = 0; from < bytes.length; from += bufferSize) {
+			ByteBuffer src = ByteBuffer.wrap(bytes, from, Math.min(bufferSize, bytes.length - from)).slice();
+			while (src.hasRemaining()) {
+				if (encode) {
+					translator.encode(src, dst);
+				} else {
+					translator.decode(src, dst);
+				}
+				drain(dst, out);
+			}
+		}
+		translator.finish(dst);
+		drain(dst, out);
+		return out.toString(StandardCharsets.US_ASCII);
+	}
+
+	private static void drain(ByteBuffer dst, ByteArrayOutputStream out) {
+		dst.flip();
+		out.write(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+		dst.clear();
+	}
+}
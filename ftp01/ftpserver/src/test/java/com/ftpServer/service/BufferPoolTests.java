@@ -0,0 +1,112 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.service.BufferPool.Account;
+import com.ftpServer.service.BufferPool.BufferLease;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferPoolTests {
+
+	private static final int KB = 1024;
+
+	private BufferPool newPool(long poolBytes, long sessionBytes) {
+		FtpServerConfig config = new FtpServerConfig();
+		config.setBufferPoolMaxBytes(poolBytes);
+		config.setSessionBufferMaxBytes(sessionBytes);
+		return new BufferPool(config);
+	}
+
+	@Test
+	void leaseUsesTheSmallestSizeClassThatFits() throws Exception {
+		BufferPool pool = newPool(4 * 1024 * KB, 4 * 1024 * KB);
+		Account account = pool.newAccount();
+
+		int[][] cases = {{1, 8 * KB}, {8 * KB, 8 * KB}, {8 * KB + 1, 64 * KB}, {64 * KB, 64 * KB},
+				{100 * KB, 256 * KB}, {1024 * KB, 256 * KB}};
+		for (int[] sizes : cases) {
+			try (BufferLease lease = pool.lease(sizes[0], account)) {
+				assertEquals(sizes[1], lease.buffer().capacity(), "min size " + sizes[0]);
+				assertTrue(lease.buffer().isDirect());
+				assertEquals(sizes[1], account.getLeasedBytes());
+			}
+		}
+		assertEquals(0, account.getLeasedBytes());
+		assertEquals(0, pool.getOutstandingBytes());
+	}
+
+	@Test
+	void leasesOverTheSessionCapAreRefused() throws Exception {
+		BufferPool pool = newPool(1024 * KB, 72 * KB);
+		Account account = pool.newAccount();
+
+		try (BufferLease first = pool.lease(64 * KB, account);
+			 BufferLease second = pool.lease(8 * KB, account)) {
+			assertThrows(BufferPoolExhaustedException.class, () -> pool.lease(1, account));
+			assertEquals(72 * KB, account.getLeasedBytes());
+
+			// Other sessions are unaffected
+			try (BufferLease other = pool.lease(64 * KB, pool.newAccount())) {
+				assertEquals(64 * KB, other.buffer().capacity());
+			}
+		}
+		assertEquals(0, account.getLeasedBytes());
+		pool.lease(64 * KB, account).close();
+	}
+
+	@Test
+	void leasesOverThePoolCapAreRefusedWithoutChargingTheSession() throws Exception {
+		BufferPool pool = newPool(128 * KB, 1024 * KB);
+		Account first = pool.newAccount();
+		Account second = pool.newAccount();
+
+		try (BufferLease a = pool.lease(64 * KB, first);
+			 BufferLease b = pool.lease(64 * KB, second)) {
+			assertThrows(BufferPoolExhaustedException.class, () -> pool.lease(8 * KB, second));
+			assertEquals(64 * KB, second.getLeasedBytes());
+			assertEquals(128 * KB, pool.getOutstandingBytes());
+		}
+		assertEquals(0, pool.getOutstandingBytes());
+	}
+
+	@Test
+	void freeBuffersOfOtherClassesAreDroppedToStayUnderThePoolCap() throws Exception {
+		BufferPool pool = newPool(300 * KB, 1024 * KB);
+		Account account = pool.newAccount();
+
+		pool.lease(256 * KB, account).close();
+		assertEquals(256 * KB, pool.getAllocatedBytes());
+
+		// A free 256 KB buffer plus a new 64 KB one would exceed the cap
+		try (BufferLease lease = pool.lease(64 * KB, account)) {
+			assertEquals(64 * KB, lease.buffer().capacity());
+			assertEquals(64 * KB, pool.getAllocatedBytes());
+		}
+	}
+
+	@Test
+	void closedBuffersAreReusedAndClosingTwiceIsHarmless() throws Exception {
+		BufferPool pool = newPool(1024 * KB, 1024 * KB);
+		Account account = pool.newAccount();
+
+		BufferLease lease = pool.lease(8 * KB, account);
+		lease.close();
+		lease.close();
+		assertEquals(0, account.getLeasedBytes());
+		assertEquals(0, pool.getOutstandingBytes());
+
+		try (BufferLease first = pool.lease(8 * KB, account);
+			 BufferLease second = pool.lease(8 * KB, account)) {
+			assertSame(lease.buffer(), first.buffer());
+			assertNotSame(first.buffer(), second.buffer());
+			assertEquals(16 * KB, pool.getOutstandingBytes());
+		}
+		assertEquals(1.0 / 3, pool.getHitRate(), 1e-9);
+		assertEquals(16 * KB, pool.getAllocatedBytes());
+	}
+}
@@ -0,0 +1,232 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.service.FileIndexService.NameSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileIndexServiceTests {
+
+	@TempDir
+	Path tempDir;
+
+	private FileIndexService index;
+
+	@AfterEach
+	void stopIndex() {
+		if (index != null) {
+			index.stop();
+		}
+	}
+
+	private FileIndexService startIndex(boolean watch) throws InterruptedException {
+		FtpServerConfig config = new FtpServerConfig();
+		config.setFileIndexWatch(watch);
+		return startIndex(config);
+	}
+
+	private FileIndexService startIndex(FtpServerConfig config) throws InterruptedException {
+		config.setRootDirectory(tempDir.toString());
+		config.setFileIndexParallelism(2);
+		index = new FileIndexService(config);
+		index.start();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!index.isReady() && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertTrue(index.isReady());
+		return index;
+	}
+
+	@Test
+	void globsMatchWholeNamesAndPlainTextMatchesSubstrings() {
+		Pattern star = FileIndexService.compile("*.log");
+		assertTrue(star.matcher("server.log").matches());
+		assertTrue(star.matcher(".log").matches());
+		assertFalse(star.matcher("server.log.1").matches());
+
+		Pattern question = FileIndexService.compile("report-?.csv");
+		assertTrue(question.matcher("report-1.csv").matches());
+		assertFalse(question.matcher("report-10.csv").matches());
+
+		// Regex metacharacters in the pattern are literal
+		assertTrue(FileIndexService.compile("a+b(*)").matcher("a+b(x)").matches());
+		assertFalse(FileIndexService.compile("a.c").matcher("abc").matches());
+
+		assertTrue(FileIndexService.compile("port").matcher("report-1.csv").matches());
+
+		assertEquals("report-", FileIndexService.literalPrefix("report-?.csv"));
+		assertEquals("", FileIndexService.literalPrefix("*.log"));
+		assertEquals("", FileIndexService.literalPrefix("port"));
+	}
+
+	@Test
+	void prefixGlobsMatchAcrossChunks() throws Exception {
+		Path dir = Files.createDirectories(tempDir.resolve("many"));
+		for (int i = 0; i < 2_000; i++) {
+			Files.createFile(dir.resolve(String.format("%s-%04d.log", i % 2 == 0 ? "app" : "web", i)));
+		}
+		Files.createFile(dir.resolve("app.txt"));
+		Files.createDirectories(dir.resolve("app-archive"));
+		FileIndexService index = startIndex(false);
+
+		assertEquals(1_000, index.find(tempDir, "web-*", 5_000).size());
+		assertEquals(1_001, index.find(tempDir, "app-*", 5_000).size());
+		assertEquals(1_000, index.find(tempDir, "app-*.log", 5_000).size());
+		assertEquals(10, index.find(tempDir, "app-19?0.log", 5_000).size());
+		assertEquals(List.of(dir.resolve("app-1998.log")), index.find(tempDir, "app-1998*", 5_000));
+		assertEquals(List.of(), index.find(tempDir, "zzz*", 5_000));
+		assertEquals(7, index.find(tempDir, "web-*", 7).size());
+	}
+
+	@Test
+	void directoriesPastTheWatchLimitAreRescanned() throws Exception {
+		Path sub = Files.createDirectories(tempDir.resolve("sub"));
+		FtpServerConfig config = new FtpServerConfig();
+		config.setFileIndexMaxWatches(1);
+		config.setFileIndexRescanSeconds(1);
+		FileIndexService index = startIndex(config);
+
+		// Only the root is watched, so this is found by the next rescan
+		Files.createFile(sub.resolve("late.txt"));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (index.find(tempDir, "late.txt", 10).isEmpty() && System.nanoTime() < deadline) {
+			Thread.sleep(50);
+		}
+		assertEquals(List.of(sub.resolve("late.txt")), index.find(tempDir, "late.txt", 10));
+	}
+
+	@Test
+	void findIsLimitedToScopeAndPrunesStaleEntries() throws Exception {
+		Path alice = Files.createDirectories(tempDir.resolve("alice/docs"));
+		Path bob = Files.createDirectories(tempDir.resolve("bob"));
+		Files.createFile(alice.resolve("notes.txt"));
+		Files.createFile(tempDir.resolve("alice/todo.txt"));
+		Files.createFile(bob.resolve("notes.txt"));
+		FileIndexService index = startIndex(false);
+		assertEquals(6, index.size());
+
+		List<Path> found = index.find(tempDir.resolve("alice"), "*.txt", 100);
+		Collections.sort(found);
+		assertEquals(List.of(alice.resolve("notes.txt"), tempDir.resolve("alice/todo.txt")), found);
+		assertEquals(1, index.find(tempDir.resolve("alice"), "*.txt", 1).size());
+
+		// Deleted behind the index's back: not returned, and dropped from the index
+		Files.delete(bob.resolve("notes.txt"));
+		assertEquals(List.of(), index.find(bob, "notes", 100));
+		assertEquals(5, index.size());
+
+		index.remove(tempDir.resolve("alice"));
+		assertEquals(List.of(), index.find(tempDir, "*.txt", 100));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void watcherFollowsChangesMadeOutsideTheServer() throws Exception {
+		FileIndexService index = startIndex(true);
+
+		Path dir = Files.createDirectories(tempDir.resolve("incoming/batch"));
+		Files.createFile(dir.resolve("data.bin"));
+		awaitFound(index, "data.bin", 1);
+
+		Files.delete(dir.resolve("data.bin"));
+		awaitFound(index, "data.bin", 0);
+	}
+
+	private void awaitFound(FileIndexService index, String name, int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (index.size() != expected + 2 && System.nanoTime() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(expected, index.find(tempDir, name, 10).size());
+		assertEquals(expected + 2, index.size());
+	}
+
+	@Test
+	void nameSetStaysSortedThroughSplitsAndMerges() {
+		NameSet set = new NameSet();
+		TreeSet<String> expected = new TreeSet<>();
+		Random random = new Random(42);
+
+		List<String> batch = new ArrayList<>();
+		for (int i = 0; i < 3_000; i++) {
+			batch.add("scan-" + random.nextInt(5_000));
+		}
+		String[] sorted = batch.stream().sorted().toArray(String[]::new);
+		expected.addAll(batch);
+		assertEquals(expected.size(), set.addAll(sorted));
+
+		for (int i = 0; i < 50_000; i++) {
+			String name = "f" + random.nextInt(10_000);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(name), set.remove(name), name);
+			} else {
+				assertEquals(expected.add(name), set.add(name), name);
+			}
+		}
+		assertContents(expected, set);
+
+		for (String name : new ArrayList<>(expected)) {
+			if (random.nextInt(10) != 0) {
+				assertTrue(set.remove(name));
+				expected.remove(name);
+			}
+		}
+		assertContents(expected, set);
+		assertTrue(set.chunks().length <= expected.size() / (NameSet.CHUNK_SIZE / 4) + 2);
+	}
+
+	@Test
+	void nameSetVisitsExactlyTheNamesWithAPrefix() {
+		NameSet set = new NameSet();
+		TreeSet<String> expected = new TreeSet<>();
+		Random random = new Random(7);
+		for (int i = 0; i < 5_000; i++) {
+			String name = Integer.toString(random.nextInt(100_000), 36);
+			set.add(name);
+			expected.add(name);
+		}
+
+		for (String prefix : new String[] {"", "a", "1", "zz", "2k", "~"}) {
+			List<String> visited = new ArrayList<>();
+			assertTrue(set.forEachWithPrefix(prefix, visited::add));
+			List<String> wanted = new ArrayList<>();
+			for (String name : expected) {
+				if (name.startsWith(prefix)) wanted.add(name);
+			}
+			assertEquals(wanted, visited, prefix);
+		}
+
+		List<String> stopped = new ArrayList<>();
+		assertFalse(set.forEachWithPrefix("", name -> stopped.add(name) && stopped.size() < 3));
+		assertEquals(3, stopped.size());
+	}
+
+	private static void assertContents(TreeSet<String> expected, NameSet set) {
+		List<String> actual = new ArrayList<>();
+		for (NameSet.Chunk chunk : set.chunks()) {
+			assertTrue(chunk.names.length > 0 && chunk.names.length <= NameSet.CHUNK_SIZE);
+			Collections.addAll(actual, chunk.names);
+		}
+		assertEquals(new ArrayList<>(expected), actual);
+		assertEquals(expected.size(), set.size());
+		for (String name : expected) {
+			assertTrue(set.contains(name), name);
+		}
+	}
+}
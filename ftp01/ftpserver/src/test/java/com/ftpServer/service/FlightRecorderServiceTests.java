@@ -0,0 +1,38 @@
+package com.ftpServer.service;
+
+import com.ftpServer.jfr.DataAcceptEvent;
+import com.ftpServer.jfr.DataTransferEvent;
+import com.ftpServer.jfr.FtpCommandEvent;
+import com.ftpServer.jfr.SessionQueueEvent;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FlightRecorderServiceTests {
+
+	@Test
+	void profileEnablesEveryFtpEvent() throws Exception {
+		Map<String, String> settings;
+		try (Reader reader = new InputStreamReader(
+				getClass().getClassLoader().getResourceAsStream(FlightRecorderService.PROFILE),
+				StandardCharsets.UTF_8)) {
+			settings = Configuration.create(reader).getSettings();
+		}
+
+		List<Class<? extends Event>> events = List.of(FtpCommandEvent.class, DataTransferEvent.class,
+				DataAcceptEvent.class, SessionQueueEvent.class);
+		for (Class<? extends Event> event : events) {
+			String name = EventType.getEventType(event).getName();
+			assertEquals("true", settings.get(name + "#enabled"), name);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.ftpServer.service;
+
+import com.ftpServer.service.HashedTimerWheel.Timeout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimerWheelTests {
+
+	private static final long TICK_MILLIS = 10;
+	private static final int WHEEL_SIZE = 8; // one turn is 80 ms
+
+	private final HashedTimerWheel wheel = new HashedTimerWheel("test-wheel", TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE);
+
+	@AfterEach
+	void stopWheel() {
+		wheel.stop();
+	}
+
+	@Test
+	void timeoutsNeverFireBeforeTheirDeadline() throws Exception {
+		// Delays within the first turn, on a turn boundary and several turns out
+		long[] delays = {0, 5, 10, 35, 79, 80, 81, 160, 250, 333};
+		CountDownLatch fired = new CountDownLatch(delays.length);
+		List<long[]> results = new ArrayList<>();
+
+		for (long delay : delays) {
+			long[] result = {delay, System.nanoTime(), 0};
+			results.add(result);
+			wheel.schedule(() -> {
+				result[2] = System.nanoTime();
+				fired.countDown();
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+
+		assertTrue(fired.await(10, TimeUnit.SECONDS));
+		for (long[] result : results) {
+			long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(result[2] - result[1]);
+			assertTrue(elapsedMillis >= result[0], "delay " + result[0] + " fired after " + elapsedMillis + " ms");
+			// Rounded up to the tick, plus scheduling slack; a missed round would be 80 ms late
+			assertTrue(elapsedMillis < result[0] + 2 * TICK_MILLIS + 60,
+					"delay " + result[0] + " fired after " + elapsedMillis + " ms");
+		}
+	}
+
+	@Test
+	void longDelayWrapsTheWheelInsteadOfFiringOnTheFirstPass() throws Exception {
+		CountDownLatch fired = new CountDownLatch(1);
+		AtomicLong firedAt = new AtomicLong();
+		long start = System.nanoTime();
+		// Lands in the bucket that is swept after 40 ms, but only on the fourth turn
+		wheel.schedule(() -> {
+			firedAt.set(System.nanoTime());
+			fired.countDown();
+		}, 3 * WHEEL_SIZE * TICK_MILLIS + 40, TimeUnit.MILLISECONDS);
+
+		assertTrue(fired.await(10, TimeUnit.SECONDS));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(firedAt.get() - start) >= 280);
+	}
+
+	@Test
+	void cancelledTimeoutsDoNotRun() throws Exception {
+		AtomicInteger ran = new AtomicInteger();
+		Timeout beforeTransfer = wheel.schedule(ran::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+		beforeTransfer.cancel();
+		Timeout inBucket = wheel.schedule(ran::incrementAndGet, 200, TimeUnit.MILLISECONDS);
+		Thread.sleep(50);
+		inBucket.cancel();
+
+		CountDownLatch later = new CountDownLatch(1);
+		wheel.schedule(later::countDown, 300, TimeUnit.MILLISECONDS);
+		assertTrue(later.await(10, TimeUnit.SECONDS));
+		assertEquals(0, ran.get());
+	}
+
+	@Test
+	void failingTaskDoesNotStopTheWheel() throws Exception {
+		wheel.schedule(() -> {
+			throw new IllegalStateException("boom");
+		}, 0, TimeUnit.MILLISECONDS);
+		CountDownLatch fired = new CountDownLatch(1);
+		wheel.schedule(fired::countDown, 20, TimeUnit.MILLISECONDS);
+		assertTrue(fired.await(10, TimeUnit.SECONDS));
+	}
+}
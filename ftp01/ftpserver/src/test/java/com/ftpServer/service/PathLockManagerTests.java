@@ -0,0 +1,177 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.service.PathLockManager.PathLock;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PathLockManagerTests {
+
+	private static final Path FILE = Paths.get("ftp-root", "guest", "shared.bin");
+
+	private PathLockManager newManager(long timeoutMillis) {
+		FtpServerConfig config = new FtpServerConfig();
+		config.setLockStripes(64);
+		config.setLockTimeoutMillis(timeoutMillis);
+		return new PathLockManager(config);
+	}
+
+	@Test
+	void writersAndReadersOnSamePathNeverOverlap() throws Exception {
+		PathLockManager manager = newManager(10_000);
+		int threads = 16;
+		int iterations = 2_000;
+
+		AtomicInteger writers = new AtomicInteger();
+		AtomicInteger readers = new AtomicInteger();
+		AtomicInteger violations = new AtomicInteger();
+		long[] unsafeCounter = new long[1];
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			boolean writer = t % 2 == 0;
+			futures.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < iterations; i++) {
+					if (writer) {
+						try (PathLock lock = manager.tryLockWrite(FILE)) {
+							assertNotNull(lock);
+							if (writers.incrementAndGet() != 1 || readers.get() != 0) {
+								violations.incrementAndGet();
+							}
+							unsafeCounter[0]++;
+							writers.decrementAndGet();
+						}
+					} else {
+						try (PathLock lock = manager.tryLockRead(FILE)) {
+							assertNotNull(lock);
+							readers.incrementAndGet();
+							if (writers.get() != 0) {
+								violations.incrementAndGet();
+							}
+							readers.decrementAndGet();
+						}
+					}
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+
+		assertEquals(0, violations.get());
+		assertEquals((long) threads / 2 * iterations, unsafeCounter[0]);
+		assertEquals((long) threads * iterations, manager.getAcquisitions());
+		assertEquals(0, manager.getTimeouts());
+	}
+
+	@Test
+	void busyPathTimesOut() throws Exception {
+		PathLockManager manager = newManager(50);
+		CountDownLatch held = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Thread holder = new Thread(() -> {
+			try (PathLock lock = manager.tryLockWrite(FILE)) {
+				held.countDown();
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		holder.start();
+		held.await();
+
+		assertNull(manager.tryLockRead(FILE));
+		assertNull(manager.tryLockWrite(FILE));
+		assertEquals(2, manager.getTimeouts());
+		assertEquals(2, manager.getContended());
+
+		release.countDown();
+		holder.join();
+		try (PathLock lock = manager.tryLockWrite(FILE)) {
+			assertNotNull(lock);
+		}
+	}
+
+	@Test
+	void unrelatedPathsOnTheSameStripeDoNotContend() throws Exception {
+		PathLockManager manager = newManager(50);
+		Path other = null;
+		for (int i = 0; other == null; i++) {
+			Path candidate = Paths.get("ftp-root", "guest", "file" + i + ".bin");
+			if (manager.stripeFor(candidate) == manager.stripeFor(FILE)) {
+				other = candidate;
+			}
+		}
+		assertNotEquals(FILE, other);
+
+		// A long transfer holds FILE from another thread while other is locked
+		CountDownLatch held = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread holder = new Thread(() -> {
+			try (PathLock lock = manager.tryLockWrite(FILE)) {
+				held.countDown();
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		holder.start();
+		held.await();
+
+		try (PathLock write = manager.tryLockWrite(other)) {
+			assertNotNull(write);
+		}
+		try (PathLock read = manager.tryLockRead(other)) {
+			assertNotNull(read);
+		}
+		assertEquals(0, manager.getContended());
+		assertEquals(0, manager.getTimeouts());
+
+		release.countDown();
+		holder.join();
+	}
+
+	@Test
+	void locksAreDroppedOnceNoLongerUsed() throws Exception {
+		PathLockManager manager = newManager(20);
+		try (PathLock first = manager.tryLockRead(FILE);
+			 PathLock second = manager.tryLockRead(Paths.get("ftp-root", "guest", "..", "guest", "shared.bin"))) {
+			assertNotNull(first);
+			assertNotNull(second);
+			assertEquals(1, manager.activePaths());
+			assertNull(manager.tryLockWrite(FILE));
+			assertEquals(1, manager.activePaths());
+		}
+		assertEquals(0, manager.activePaths());
+
+		for (int i = 0; i < 1_000; i++) {
+			try (PathLock lock = manager.tryLockWrite(Paths.get("ftp-root", "file" + i))) {
+				assertNotNull(lock);
+			}
+		}
+		assertEquals(0, manager.activePaths());
+	}
+}
@@ -0,0 +1,274 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.model.FtpUser;
+import com.ftpServer.service.QuotaService.Reservation;
+import com.ftpServer.service.RecursiveOperationService.DirectorySink;
+import com.ftpServer.service.RecursiveOperationService.RecursiveOperation;
+import com.ftpServer.service.RecursiveOperationService.TreeStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuotaServiceTests {
+
+	@TempDir
+	Path tempDir;
+
+	private FtpServerConfig config;
+	private UserService userService;
+	private FtpUser guest;
+	private Path home;
+	private RecursiveOperationService recursive;
+
+	@BeforeEach
+	void setUp() {
+		config = new FtpServerConfig();
+		config.setRootDirectory(tempDir.resolve("root").toString());
+		config.setQuotaLedgerFile(tempDir.resolve("quota.ledger").toString());
+		config.setRecursiveParallelism(2);
+		config.setGuestMaxBytes(1_000_000);
+		config.setGuestMaxFiles(100);
+		userService = new UserService(config);
+		guest = userService.authenticate("guest", "guest").orElseThrow();
+		home = tempDir.resolve("root/guest").toAbsolutePath();
+		recursive = new RecursiveOperationService(config, new PathLockManager(config));
+	}
+
+	@AfterEach
+	void tearDown() {
+		recursive.stop();
+	}
+
+	@Test
+	void guestHasNoQuotaUnlessConfigured() {
+		assertFalse(new UserService(new FtpServerConfig()).authenticate("guest", "guest").orElseThrow().hasQuota());
+		assertTrue(guest.hasQuota());
+	}
+
+	@Test
+	void ledgerSurvivesRestart() {
+		// No home directory on disk, so startup has nothing to reconcile against
+		QuotaService first = new QuotaService(config, userService, recursive);
+		assertEquals(0, first.usedBytes(guest));
+		first.record(home.resolve("a.bin"), 300, 1);
+		first.record(home.resolve("dir/b.bin"), 200, 2);
+		assertEquals(999_500, first.remainingBytes(guest));
+		first.stop();
+
+		QuotaService second = new QuotaService(config, userService, recursive);
+		second.start();
+		try {
+			assertEquals(500, second.usedBytes(guest));
+			assertEquals(3, second.usedEntries(guest));
+			assertTrue(second.hasRoomForEntries(guest, 97));
+			assertFalse(second.hasRoomForEntries(guest, 98));
+		} finally {
+			second.stop();
+		}
+	}
+
+	@Test
+	void changesAreChargedToTheHomeThatContainsThem() {
+		QuotaService quota = new QuotaService(config, userService, recursive);
+		assertEquals(0, quota.usedBytes(guest));
+
+		quota.record(home.resolve("deep/down/a.bin"), 300, 1);
+		quota.record(tempDir.resolve("root/other/b.bin"), 200, 1);
+		quota.record(tempDir.resolve("root/guestbook.txt"), 50, 1);
+		assertEquals(300, quota.usedBytes(guest));
+		assertEquals(1, quota.usedEntries(guest));
+		quota.stop();
+	}
+
+	@Test
+	void concurrentUploadsCannotPassTheQuotaTogether() throws Exception {
+		config.setGuestMaxBytes(1_000);
+		config.setGuestMaxFiles(3);
+		userService = new UserService(config);
+		guest = userService.authenticate("guest", "guest").orElseThrow();
+		QuotaService quota = new QuotaService(config, userService, recursive);
+		assertEquals(0, quota.usedBytes(guest));
+		quota.record(home.resolve("old.bin"), 400, 1);
+
+		try (Reservation first = quota.reserveUpload(home.resolve("a.bin"), 0, true);
+			 Reservation second = quota.reserveUpload(home.resolve("b.bin"), 0, true)) {
+			// The third entry is held by the two uploads in progress
+			assertThrows(QuotaExceededException.class, () -> quota.reserveEntry(home.resolve("dir")));
+
+			assertTrue(first.cover(400));
+			assertTrue(second.cover(200));
+			assertFalse(second.cover(201));
+			first.settle(400, 1);
+		}
+		// Whatever the second upload held is handed back
+		assertEquals(800, quota.usedBytes(guest));
+		assertEquals(2, quota.usedEntries(guest));
+
+		// An overwrite may reuse the bytes of the file it replaces
+		try (Reservation overwrite = quota.reserveUpload(home.resolve("old.bin"), 400, false)) {
+			assertTrue(overwrite.cover(600));
+			assertFalse(overwrite.cover(601));
+		}
+		assertEquals(800, quota.usedBytes(guest));
+		quota.stop();
+	}
+
+	@Test
+	void fullQuotaRefusesUploadsButNotDeletes() throws Exception {
+		config.setGuestMaxBytes(1_000);
+		userService = new UserService(config);
+		guest = userService.authenticate("guest", "guest").orElseThrow();
+		QuotaService quota = new QuotaService(config, userService, recursive);
+		assertEquals(0, quota.usedBytes(guest));
+		quota.record(home.resolve("full.bin"), 1_000, 1);
+
+		assertThrows(QuotaExceededException.class, () -> quota.reserveUpload(home.resolve("a.bin"), 0, true));
+		quota.reserveEntry(home.resolve("dir")).close();
+		quota.reserveUpload(home.resolve("full.bin"), 1_000, false).close();
+
+		quota.record(home.resolve("full.bin"), -1_000, -1);
+		quota.reserveUpload(home.resolve("a.bin"), 0, true).close();
+		quota.stop();
+	}
+
+	@Test
+	void ledgerWithUnknownFormatIsIgnored() throws IOException {
+		Files.write(tempDir.resolve("quota.ledger"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+		QuotaService quota = new QuotaService(config, userService, recursive);
+		quota.start();
+		try {
+			assertEquals(0, quota.usedBytes(guest));
+		} finally {
+			quota.stop();
+		}
+	}
+
+	@Test
+	void reconcileCountsChangesDuringTheScanExactlyOnce() throws Exception {
+		Files.createDirectories(home.resolve("a"));
+		Files.createDirectories(home.resolve("b"));
+		Files.write(home.resolve("a/x.bin"), new byte[10]);
+		Files.write(home.resolve("b/y.bin"), new byte[20]);
+
+		QuotaService[] holder = new QuotaService[1];
+		RecursiveOperationService scanner = new InterceptingScanner(config, (dir, entries, sink) -> {
+			QuotaService quota = holder[0];
+			if (dir.equals(home)) {
+				// Upload into a directory the walk has not reached yet: the scan sees it
+				Files.write(home.resolve("a/new.bin"), new byte[100]);
+				quota.record(home.resolve("a/new.bin"), 100, 1);
+				// Upload into the directory being listed, missed by its listing
+				Files.write(home.resolve("top.bin"), new byte[1_000]);
+				quota.record(home.resolve("top.bin"), 1_000, 1);
+				sink.accept(dir, entries);
+				// Delete from a directory the walk has not reached yet
+				Files.delete(home.resolve("b/y.bin"));
+				quota.record(home.resolve("b/y.bin"), -20, -1);
+				// Directory created after its parent was listed, never walked
+				Files.createDirectories(home.resolve("late"));
+				quota.record(home.resolve("late"), 0, 1);
+				Files.write(home.resolve("late/z.bin"), new byte[5]);
+				quota.record(home.resolve("late/z.bin"), 5, 1);
+			} else if (dir.equals(home.resolve("a"))) {
+				sink.accept(dir, entries);
+				// Upload into a directory the walk has finished
+				Files.write(home.resolve("a/after.bin"), new byte[7]);
+				quota.record(home.resolve("a/after.bin"), 7, 1);
+			} else {
+				sink.accept(dir, entries);
+			}
+		});
+		QuotaService quota = new QuotaService(config, userService, scanner);
+		holder[0] = quota;
+		try {
+			assertEquals(0, quota.usedBytes(guest));
+			quota.reconcile().get(10, TimeUnit.SECONDS);
+
+			// a/x, a/new, a/after, top, late/z; directories a, b, late
+			assertEquals(10 + 100 + 7 + 1_000 + 5, quota.usedBytes(guest));
+			assertEquals(8, quota.usedEntries(guest));
+		} finally {
+			quota.stop();
+			scanner.stop();
+		}
+	}
+
+	@Test
+	void overlappingReconcileWaitsForTheRunningScanAndScansAgain() throws Exception {
+		Files.createDirectories(home.resolve("a"));
+		Files.write(home.resolve("a/x.bin"), new byte[10]);
+
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger scans = new AtomicInteger();
+		RecursiveOperationService scanner = new InterceptingScanner(config, (dir, entries, sink) -> {
+			if (dir.equals(home) && scans.incrementAndGet() == 1) {
+				entered.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			sink.accept(dir, entries);
+		});
+		QuotaService quota = new QuotaService(config, userService, scanner);
+		try {
+			quota.usedBytes(guest);
+			CompletableFuture<Void> running = quota.reconcile();
+			assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+			quota.record(home.resolve("a/y.bin"), 40, 1);
+			Files.write(home.resolve("a/y.bin"), new byte[40]);
+			assertTrue(quota.reconcile().isDone());
+			assertFalse(running.isDone());
+
+			release.countDown();
+			running.get(10, TimeUnit.SECONDS);
+			assertEquals(2, scans.get());
+			assertEquals(50, quota.usedBytes(guest));
+			assertEquals(3, quota.usedEntries(guest));
+		} finally {
+			quota.stop();
+			scanner.stop();
+		}
+	}
+
+	@FunctionalInterface
+	private interface Interceptor {
+		void accept(Path dir, List<Path> entries, DirectorySink sink) throws IOException;
+	}
+
+	/**
+	 * Runs a hook around each directory the walk hands to the quota service.
+	 */
+	private static final class InterceptingScanner extends RecursiveOperationService {
+		private final Interceptor interceptor;
+
+		InterceptingScanner(FtpServerConfig config, Interceptor interceptor) {
+			super(config, new PathLockManager(config));
+			this.interceptor = interceptor;
+		}
+
+		@Override
+		public RecursiveOperation<TreeStats> list(Path dir, DirectorySink sink) {
+			return super.list(dir, (scanned, entries) -> interceptor.accept(scanned, entries, sink));
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.service.PathLockManager.PathLock;
+import com.ftpServer.service.RecursiveOperationService.DirectoryQueue;
+import com.ftpServer.service.RecursiveOperationService.Listing;
+import com.ftpServer.service.RecursiveOperationService.RecursiveOperation;
+import com.ftpServer.service.RecursiveOperationService.TreeStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecursiveOperationServiceTests {
+
+	@TempDir
+	Path tempDir;
+
+	private PathLockManager locks;
+	private RecursiveOperationService service;
+	private Path tree;
+
+	@BeforeEach
+	void createTree() throws IOException {
+		FtpServerConfig config = new FtpServerConfig();
+		config.setRecursiveParallelism(4);
+		config.setLockTimeoutMillis(50);
+		locks = new PathLockManager(config);
+		service = new RecursiveOperationService(config, locks);
+
+		// tree/{a.txt, b/{c.bin, d/{e.txt, f.txt}}, g/}
+		tree = Files.createDirectories(tempDir.resolve("tree"));
+		Files.write(tree.resolve("a.txt"), new byte[10]);
+		Path b = Files.createDirectories(tree.resolve("b"));
+		Files.write(b.resolve("c.bin"), new byte[200]);
+		Path d = Files.createDirectories(b.resolve("d"));
+		Files.write(d.resolve("e.txt"), new byte[3_000]);
+		Files.write(d.resolve("f.txt"), new byte[40_000]);
+		Files.createDirectories(tree.resolve("g"));
+	}
+
+	@AfterEach
+	void stopService() {
+		service.stop();
+	}
+
+	@Test
+	void listHandsEveryDirectoryToTheSink() throws Exception {
+		Map<Path, List<Path>> listed = new ConcurrentHashMap<>();
+		TreeStats stats = service.list(tree, (dir, entries) -> {
+			List<Path> sorted = new ArrayList<>(entries);
+			Collections.sort(sorted);
+			listed.put(dir, sorted);
+		}).result().get(10, TimeUnit.SECONDS);
+
+		assertEquals(4, listed.size());
+		assertEquals(List.of(tree.resolve("a.txt"), tree.resolve("b"), tree.resolve("g")), listed.get(tree));
+		assertEquals(List.of(tree.resolve("b/c.bin"), tree.resolve("b/d")), listed.get(tree.resolve("b")));
+		assertEquals(List.of(tree.resolve("b/d/e.txt"), tree.resolve("b/d/f.txt")), listed.get(tree.resolve("b/d")));
+		assertEquals(List.of(), listed.get(tree.resolve("g")));
+		assertTotals(stats);
+	}
+
+	@Test
+	void sizeTotalsBytesFilesAndDirectories() throws Exception {
+		assertTotals(service.size(tree).result().get(10, TimeUnit.SECONDS));
+		assertTrue(Files.exists(tree.resolve("b/d/f.txt")));
+	}
+
+	@Test
+	void deleteRemovesTheWholeTree() throws Exception {
+		assertTotals(service.delete(tree).result().get(10, TimeUnit.SECONDS));
+		assertFalse(Files.exists(tree));
+	}
+
+	@Test
+	void deleteFailsOnAFileInUseAndLeavesIt() throws Exception {
+		Path busy = tree.resolve("b/d/f.txt");
+		try (PathLock transfer = locks.tryLockRead(busy)) {
+			ExecutionException failure = assertThrows(ExecutionException.class,
+					() -> service.delete(tree).result().get(10, TimeUnit.SECONDS));
+			assertInstanceOf(FileSystemException.class, failure.getCause());
+		}
+		assertTrue(Files.exists(busy));
+		assertEquals(0, locks.activePaths());
+	}
+
+	@Test
+	void cancelStopsTheWalkAndFailsTheResult() throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+		RecursiveOperation<TreeStats> operation = service.list(tree, (dir, entries) -> {
+			calls.incrementAndGet();
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		assertTrue(entered.await(10, TimeUnit.SECONDS));
+		operation.cancel();
+		release.countDown();
+
+		assertThrows(CancellationException.class, () -> operation.result().get(10, TimeUnit.SECONDS));
+		assertTrue(operation.isCancelled());
+		// Sub-directories are only forked after their parent reached the sink
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void sinkFailureDeepInTheTreeSurfacesAsIoException() {
+		Path failing = tree.resolve("b/d");
+		RecursiveOperation<TreeStats> operation = service.list(tree, (dir, entries) -> {
+			if (dir.equals(failing)) {
+				throw new IOException("Broken pipe");
+			}
+		});
+
+		ExecutionException failure = assertThrows(ExecutionException.class,
+				() -> operation.result().get(10, TimeUnit.SECONDS));
+		assertInstanceOf(IOException.class, failure.getCause());
+		assertEquals("Broken pipe", failure.getCause().getMessage());
+	}
+
+	@Test
+	void directoryQueueHandsEveryDirectoryToTheConsumer() throws Exception {
+		DirectoryQueue queue = new DirectoryQueue(1);
+		RecursiveOperation<TreeStats> operation = service.list(tree, queue);
+		operation.result().whenComplete((stats, error) -> queue.finish());
+
+		List<Path> listed = new ArrayList<>();
+		while (!queue.isDone()) {
+			Listing listing = queue.poll(10, TimeUnit.MILLISECONDS);
+			if (listing != null) {
+				listed.add(listing.getDirectory());
+			}
+		}
+		Collections.sort(listed);
+		assertEquals(List.of(tree, tree.resolve("b"), tree.resolve("b/d"), tree.resolve("g")), listed);
+		assertTotals(operation.result().get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void walkerWaitingOnAFullQueueDoesNotHoldUpOtherOperations() throws Exception {
+		FtpServerConfig config = new FtpServerConfig();
+		config.setRecursiveParallelism(1);
+		RecursiveOperationService single = new RecursiveOperationService(config, locks);
+		try {
+			// Nobody consumes, so the walk stalls once the queue is full
+			DirectoryQueue queue = new DirectoryQueue(1);
+			RecursiveOperation<TreeStats> stalled = single.list(tree, queue);
+
+			assertTotals(single.size(tree).result().get(10, TimeUnit.SECONDS));
+			assertFalse(stalled.result().isDone());
+
+			queue.close();
+			assertTotals(stalled.result().get(10, TimeUnit.SECONDS));
+		} finally {
+			single.stop();
+		}
+	}
+
+	@Test
+	void stopFailsOperationsThatAreStillRunning() throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		RecursiveOperation<TreeStats> operation = service.list(tree, (dir, entries) -> {
+			entered.countDown();
+			// Ignores cancellation, like a walker stuck in a slow filesystem call
+			while (true) {
+				try {
+					Thread.sleep(60_000);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		});
+		assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+		service.stop();
+		assertThrows(CancellationException.class, () -> operation.result().get(10, TimeUnit.SECONDS));
+		assertThrows(CancellationException.class, () -> service.size(tree).result().get(10, TimeUnit.SECONDS));
+	}
+
+	private static void assertTotals(TreeStats stats) {
+		assertEquals(43_210, stats.getBytes());
+		assertEquals(4, stats.getFiles());
+		assertEquals(4, stats.getDirectories());
+	}
+}
@@ -0,0 +1,85 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.service.SessionTimeoutService.Reason;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTimeoutServiceTests {
+
+	private SessionTimeoutService service;
+
+	@AfterEach
+	void stopService() {
+		service.stop();
+	}
+
+	@Test
+	void reapsPastTheReaperQueueAreClosedWithoutAGoodbye() throws Exception {
+		FtpServerConfig config = new FtpServerConfig();
+		config.setReaperThreads(1);
+		config.setReaperQueueCapacity(1);
+		config.setReapGraceMillis(60_000);
+		config.setTimerTickMillis(10);
+		service = new SessionTimeoutService(config);
+
+		// The first goodbye holds the only thread and the second waits in the queue
+		CountDownLatch stuck = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger goodbyes = new AtomicInteger();
+		AtomicInteger closes = new AtomicInteger();
+		service.reap(Reason.IDLE, () -> {
+			goodbyes.incrementAndGet();
+			stuck.countDown();
+			awaitQuietly(release);
+		}, closes::incrementAndGet);
+		assertTrue(stuck.await(10, TimeUnit.SECONDS));
+		service.reap(Reason.IDLE, goodbyes::incrementAndGet, closes::incrementAndGet);
+
+		CountDownLatch closed = new CountDownLatch(1);
+		service.reap(Reason.STALLED_TRANSFER, goodbyes::incrementAndGet, closed::countDown);
+		assertEquals(0, closed.getCount());
+		assertEquals(0, closes.get());
+
+		release.countDown();
+		for (int i = 0; i < 100 && closes.get() < 2; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(2, goodbyes.get());
+		assertEquals(2, closes.get());
+		assertEquals(2, service.getReaped(Reason.IDLE));
+		assertEquals(1, service.getReaped(Reason.STALLED_TRANSFER));
+	}
+
+	@Test
+	void forcedCloseRunsWhenTheGoodbyeOverrunsTheGracePeriod() throws Exception {
+		FtpServerConfig config = new FtpServerConfig();
+		config.setReapGraceMillis(50);
+		config.setTimerTickMillis(10);
+		service = new SessionTimeoutService(config);
+
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch closed = new CountDownLatch(1);
+		service.reap(Reason.IDLE, () -> awaitQuietly(release), closed::countDown);
+		try {
+			assertTrue(closed.await(10, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
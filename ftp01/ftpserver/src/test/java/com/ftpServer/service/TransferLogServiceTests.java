@@ -0,0 +1,68 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransferLogServiceTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void recordsFromManyThreadsAreWrittenInXferlogFormat() throws Exception {
+		FtpServerConfig config = new FtpServerConfig();
+		config.setRootDirectory(tempDir.resolve("root").toString());
+		config.setTransferLogFile(tempDir.resolve("xferlog").toString());
+		config.setTransferLogBufferSize(64);
+		config.setTransferLogFlushIntervalMillis(1);
+		TransferLogService transferLog = new TransferLogService(config);
+		transferLog.start();
+
+		Path root = tempDir.resolve("root").toAbsolutePath();
+		InetAddress client = InetAddress.getLoopbackAddress();
+		int threads = 8;
+		int perThread = 500;
+		List<Thread> producers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int id = t;
+			producers.add(new Thread(() -> {
+				for (int i = 0; i < perThread; i++) {
+					// The ring is small, so retry dropped records to keep the count exact
+					Path file = root.resolve("t" + id + "/my file " + i);
+					while (!transferLog.record(client, 1_000_000, id, file, false, true, "guest", true)) {
+						Thread.onSpinWait();
+					}
+				}
+			}));
+		}
+		producers.forEach(Thread::start);
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		transferLog.stop();
+
+		List<String> lines = Files.readAllLines(tempDir.resolve("xferlog"));
+		assertEquals(threads * perThread, lines.size());
+		assertEquals(threads * perThread, new HashSet<>(lines.stream().map(line -> line.split(" +")[8]).toList()).size());
+
+		String[] fields = lines.get(0).split(" +");
+		assertEquals(18, fields.length);
+		assertEquals(client.getHostAddress(), fields[6]);
+		assertTrue(fields[8].matches("/t\\d/my_file_\\d+"), fields[8]);
+		assertEquals(Set.of("b", "_", "i", "r", "guest", "ftp", "0", "*", "c"),
+				Set.of(fields[9], fields[10], fields[11], fields[12], fields[13], fields[14], fields[15],
+						fields[16], fields[17]));
+	}
+}
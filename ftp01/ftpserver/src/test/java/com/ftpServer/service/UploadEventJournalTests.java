@@ -0,0 +1,108 @@
+package com.ftpServer.service;
+
+import com.ftpServer.config.FtpServerConfig;
+import com.ftpServer.model.UploadEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadEventJournalTests {
+
+	@TempDir
+	Path tempDir;
+
+	private UploadEventJournal newJournal(UploadEventListener listener) {
+		FtpServerConfig config = new FtpServerConfig();
+		config.setUploadJournalDirectory(tempDir.resolve("journal").toString());
+		config.setUploadJournalSegmentBytes(1024);
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		beans.addBean("listener", listener);
+		UploadEventJournal journal = new UploadEventJournal(config, beans.getBeanProvider(UploadEventListener.class));
+		journal.start();
+		return journal;
+	}
+
+	@Test
+	void concurrentUploadsAreDeliveredOnceWithDistinctSequences() throws Exception {
+		List<UploadEvent> received = new CopyOnWriteArrayList<>();
+		CountDownLatch done = new CountDownLatch(200);
+		UploadEventJournal journal = newJournal(event -> {
+			received.add(event);
+			done.countDown();
+		});
+
+		ExecutorService sessions = Executors.newFixedThreadPool(8);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			int n = i;
+			futures.add(sessions.submit(() -> journal.publish("guest", tempDir.resolve("file-" + n), n)));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		sessions.shutdown();
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		journal.stop();
+
+		assertEquals(200, received.size());
+		assertEquals(200, received.stream().mapToLong(UploadEvent::getSequence).distinct().count());
+		assertEquals(200, received.stream().mapToLong(UploadEvent::getSequence).max().orElse(0));
+
+		// Small segments roll over and fully delivered ones are deleted
+		try (Stream<Path> files = Files.list(tempDir.resolve("journal"))) {
+			assertTrue(files.filter(file -> file.getFileName().toString().startsWith("segment-")).count() <= 2);
+		}
+	}
+
+	@Test
+	void undeliveredEventsAreReplayedAfterRestart() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		UploadEventJournal first = newJournal(event -> {
+			started.countDown();
+			new CountDownLatch(1).await(); // stays busy until shutdown interrupts it
+		});
+		first.publish("guest", tempDir.resolve("a.txt"), 1);
+		first.publish("guest", tempDir.resolve("b.txt"), 2);
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		first.stop();
+
+		// A crash halfway through a record leaves a torn tail behind
+		try (Stream<Path> files = Files.list(tempDir.resolve("journal"))) {
+			Path segment = files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+					.sorted().reduce((a, b) -> b).orElseThrow();
+			Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+		}
+
+		List<UploadEvent> replayed = new CopyOnWriteArrayList<>();
+		CountDownLatch done = new CountDownLatch(3);
+		UploadEventJournal second = newJournal(event -> {
+			replayed.add(event);
+			done.countDown();
+		});
+		second.publish("guest", tempDir.resolve("c.txt"), 3);
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		second.stop();
+
+		List<Long> sequences = replayed.stream().map(UploadEvent::getSequence).sorted().toList();
+		assertEquals(List.of(1L, 2L, 3L), sequences);
+		assertEquals(tempDir.resolve("c.txt").toAbsolutePath(),
+				replayed.stream().filter(event -> event.getSequence() == 3).findFirst().orElseThrow().getPath());
+	}
+}